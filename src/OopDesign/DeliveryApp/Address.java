@@ -0,0 +1,31 @@
+package OopDesign.DeliveryApp;
+
+class Address{
+    private String addressName;
+    private long position;
+    private int journalId;
+    public Address(String addressName, Location location) {
+        this.addressName = addressName;
+        this.position = Locations.pack(location);
+    }
+
+    public String getAddressName() {
+        return addressName;
+    }
+
+    public Location getLocation() {
+        return Locations.toLocation(position);
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public int getJournalId() {
+        return journalId;
+    }
+
+    public void setJournalId(int journalId) {
+        this.journalId = journalId;
+    }
+}
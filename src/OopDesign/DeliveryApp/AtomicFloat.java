@@ -0,0 +1,26 @@
+package OopDesign.DeliveryApp;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A float total that many threads can add to. Each add is one compare-and-set on the float's bits,
+ * so the total rounds exactly as a plain float sum would.
+ */
+class AtomicFloat {
+    private final AtomicInteger bits = new AtomicInteger(Float.floatToRawIntBits(0f));
+
+    public void add(float delta) {
+        int current;
+        do {
+            current = bits.get();
+        } while (!bits.compareAndSet(current, Float.floatToRawIntBits(Float.intBitsToFloat(current) + delta)));
+    }
+
+    public float get() {
+        return Float.intBitsToFloat(bits.get());
+    }
+
+    public void set(float value) {
+        bits.set(Float.floatToRawIntBits(value));
+    }
+}
@@ -0,0 +1,225 @@
+package OopDesign.DeliveryApp;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-cost assignment of orders to couriers over a sparse set of candidate pairs, by
+ * successive shortest paths. Orders from the same restaurant share one node with their candidate
+ * couriers, so a busy restaurant costs one candidate list instead of one per order. Orders are
+ * added one at a time; each runs Dijkstra over alternating paths with node potentials keeping
+ * reduced costs non-negative, so the assignment stays cheapest for the orders added so far. An
+ * order with no augmenting path stays unassigned, and a later order never displaces an earlier
+ * one, so when couriers run short the earliest orders are served.
+ * <p>
+ * A failed search settles every node it can reach, and none of them leads to a free courier. Later
+ * augmenting paths cannot enter that set, so it stays dead: searches skip it, and later orders
+ * from a dead group fail at once instead of exploring it again.
+ */
+class BatchMatcher {
+
+    /**
+     * Order o belongs to group groupOf[o]; the candidates of group g are
+     * targets[offsets[g] .. offsets[g + 1]) with assignment costs. Returns the courier assigned to
+     * each order, or -1.
+     */
+    public static int[] match(int[] groupOf, int groups, int couriers, int[] offsets, int[] targets, long[] costs) {
+        int nodes = groups + couriers;
+        // nodes 0..groups-1 are groups, the rest are couriers
+        int[] groupOfCourier = new int[couriers];
+        long[] assignedCost = new long[couriers];
+        int[] assignedCount = new int[groups];
+        Arrays.fill(groupOfCourier, -1);
+        long[] potential = new long[nodes];
+        long[] distance = new long[nodes];
+        Arrays.fill(distance, Long.MAX_VALUE);
+        boolean[] settled = new boolean[nodes];
+        boolean[] dead = new boolean[nodes];
+        int[] parentGroup = new int[couriers];
+        int[] parentCourier = new int[groups];
+        int[] touched = new int[nodes];
+        NodeHeap heap = new NodeHeap(nodes);
+        boolean[] served = new boolean[groupOf.length];
+
+        for (int order = 0; order < groupOf.length; order++) {
+            int start = groupOf[order];
+            if (offsets[start] == offsets[start + 1] || dead[start]) continue;
+            if (assignedCount[start] == 0) {
+                // nothing leads into the group yet, so its potential is free to raise
+                long startPotential = Long.MIN_VALUE;
+                for (int e = offsets[start]; e < offsets[start + 1]; e++) {
+                    startPotential = Math.max(startPotential, potential[groups + targets[e]] - costs[e]);
+                }
+                potential[start] = startPotential;
+            }
+
+            int touchedCount = 0;
+            distance[start] = 0;
+            parentCourier[start] = -1;
+            touched[touchedCount++] = start;
+            heap.push(start, 0);
+            int free = -1;
+            long reach = 0;
+            while (!heap.isEmpty()) {
+                long d = heap.peekKey();
+                int node = heap.pop();
+                if (settled[node] || d > distance[node]) continue;
+                settled[node] = true;
+                if (node >= groups) {
+                    int courier = node - groups;
+                    int next = groupOfCourier[courier];
+                    if (next < 0) {
+                        free = courier;
+                        reach = d;
+                        break;
+                    }
+                    long reduced = -assignedCost[courier] + potential[node] - potential[next];
+                    if (!settled[next] && !dead[next] && d + reduced < distance[next]) {
+                        if (distance[next] == Long.MAX_VALUE) touched[touchedCount++] = next;
+                        distance[next] = d + reduced;
+                        parentCourier[next] = courier;
+                        heap.push(next, d + reduced);
+                    }
+                } else {
+                    for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                        int courier = targets[e];
+                        if (groupOfCourier[courier] == node) continue;
+                        int target = groups + courier;
+                        long reduced = costs[e] + potential[node] - potential[target];
+                        if (!settled[target] && !dead[target] && d + reduced < distance[target]) {
+                            if (distance[target] == Long.MAX_VALUE) touched[touchedCount++] = target;
+                            distance[target] = d + reduced;
+                            parentGroup[courier] = node;
+                            heap.push(target, d + reduced);
+                        }
+                    }
+                }
+            }
+            heap.clear();
+
+            if (free >= 0) {
+                // shifting every potential by the same amount changes no reduced cost, so only
+                // nodes settled closer than the free courier need updating
+                for (int i = 0; i < touchedCount; i++) {
+                    int node = touched[i];
+                    if (settled[node]) potential[node] += distance[node] - reach;
+                }
+                int courier = free;
+                while (courier >= 0) {
+                    int group = parentGroup[courier];
+                    groupOfCourier[courier] = group;
+                    assignedCost[courier] = cost(offsets, targets, costs, group, courier);
+                    courier = parentCourier[group];
+                }
+                assignedCount[start]++;
+                served[order] = true;
+            } else {
+                for (int i = 0; i < touchedCount; i++) {
+                    dead[touched[i]] = true;
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                settled[touched[i]] = false;
+                distance[touched[i]] = Long.MAX_VALUE;
+            }
+        }
+
+        // couriers move between orders of a group while augmenting, so hand them out at the end,
+        // cheapest to the earliest order
+        int[][] byGroup = new int[groups][];
+        int[] filled = new int[groups];
+        for (int g = 0; g < groups; g++) {
+            byGroup[g] = new int[assignedCount[g]];
+        }
+        for (int courier = 0; courier < couriers; courier++) {
+            int g = groupOfCourier[courier];
+            if (g >= 0) byGroup[g][filled[g]++] = courier;
+        }
+        for (int[] group : byGroup) {
+            // a group holds a handful of couriers, so a stable insertion sort is enough
+            for (int i = 1; i < group.length; i++) {
+                int courier = group[i];
+                int j = i;
+                for (; j > 0 && assignedCost[group[j - 1]] > assignedCost[courier]; j--) {
+                    group[j] = group[j - 1];
+                }
+                group[j] = courier;
+            }
+        }
+        int[] courierOf = new int[groupOf.length];
+        Arrays.fill(filled, 0);
+        for (int order = 0; order < groupOf.length; order++) {
+            courierOf[order] = served[order] ? byGroup[groupOf[order]][filled[groupOf[order]]++] : -1;
+        }
+        return courierOf;
+    }
+
+    private static long cost(int[] offsets, int[] targets, long[] costs, int group, int courier) {
+        for (int e = offsets[group]; e < offsets[group + 1]; e++) {
+            if (targets[e] == courier) return costs[e];
+        }
+        throw new IllegalStateException("Courier " + courier + " is not a candidate of group " + group);
+    }
+
+    /**
+     * Binary heap of (key, node) pairs; stale entries are skipped by the caller.
+     */
+    private static class NodeHeap {
+        private long[] keys;
+        private int[] nodes;
+        private int size;
+
+        NodeHeap(int capacity) {
+            keys = new long[Math.max(capacity, 1)];
+            nodes = new int[Math.max(capacity, 1)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long peekKey() {
+            return keys[0];
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void push(int node, long key) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int up = (i - 1) >>> 1;
+                if (keys[up] <= key) break;
+                keys[i] = keys[up];
+                nodes[i] = nodes[up];
+                i = up;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            long key = keys[size];
+            int node = nodes[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= key) break;
+                keys[i] = keys[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+            return top;
+        }
+    }
+}
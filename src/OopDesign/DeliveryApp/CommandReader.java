@@ -0,0 +1,453 @@
+package OopDesign.DeliveryApp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads DeliveryAppTester commands straight from the input bytes. Lines and fields come out as
+ * Scanner.nextLine and String.split(" ") would make them, including empty fields, and a missing
+ * field throws the same ArrayIndexOutOfBoundsException indexing the split array did. Numbers are
+ * parsed in place; anything outside the fast paths goes through Integer.parseInt or
+ * Float.parseFloat, so odd input is accepted or rejected exactly as before.
+ * <p>
+ * Ids and names are interned in a SymbolTable, so a line whose strings have been seen before
+ * allocates nothing. Space, CR and LF are matched as bytes, which holds for the ASCII-based
+ * charsets the default charset is in practice.
+ */
+class CommandReader {
+    static final int ADD_USER = 0;
+    static final int REGISTER_DELIVERY_PERSON = 1;
+    static final int ADD_RESTAURANT = 2;
+    static final int ADD_ADDRESS = 3;
+    static final int ORDER_FOOD = 4;
+    static final int PRINT_USERS = 5;
+    static final int PRINT_RESTAURANTS = 6;
+    private static final String[] COMMANDS = {
+            "addUser", "registerDeliveryPerson", "addRestaurant", "addAddress", "orderFood", "printUsers", "printRestaurants"
+    };
+
+    // every power here is exact as a float, so mantissa / power rounds once, like parseFloat
+    private static final float[] FLOAT_POWERS = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+    private static final int MAX_FLOAT_MANTISSA = 1 << 24;
+
+    static final VarHandle WORDS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long DOTS = 0x2E2E2E2E2E2E2E2EL;
+    private static final long ZEROS = 0x3030303030303030L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private final InputStream in;
+    private final Charset charset;
+    private final boolean utf8;
+    private final boolean latin1;
+    private final SymbolTable symbols;
+    // each command name as little-endian words, zero-padded, as read by WORDS
+    private final long[][] commands = new long[COMMANDS.length][];
+    private final int[] commandLengths = new int[COMMANDS.length];
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    private int lineStart;
+    private int lineEnd;
+    // field f runs from separators[f] + 1 to separators[f + 1]; the first entry is the byte before the line
+    private int[] separators = new int[9];
+    private int fields;
+
+    public CommandReader(InputStream in) {
+        this(in, Charset.defaultCharset(), 1 << 16);
+    }
+
+    public CommandReader(InputStream in, Charset charset, int bufferSize) {
+        this.in = in;
+        this.charset = charset;
+        this.utf8 = charset.equals(StandardCharsets.UTF_8);
+        this.latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+        this.symbols = new SymbolTable(charset);
+        this.buffer = new byte[bufferSize + 8];
+        for (int c = 0; c < COMMANDS.length; c++) {
+            byte[] name = COMMANDS[c].getBytes(charset);
+            commandLengths[c] = name.length;
+            commands[c] = new long[(name.length + 7) / 8];
+            for (int i = 0; i < name.length; i++) {
+                commands[c][i / 8] |= (name[i] & 0xFFL) << ((i % 8) << 3);
+            }
+        }
+    }
+
+    // the app name line, which Scanner.nextLine would fail on when there is no input at all
+    public String firstLine() {
+        if (!nextLine()) throw new NoSuchElementException("No line found");
+        return new String(buffer, lineStart, lineEnd - lineStart, charset);
+    }
+
+    /**
+     * Moves to the next line and splits it into fields. Returns false at the end of the input, or
+     * when reading fails, which Scanner also took for the end.
+     * <p>
+     * The line is scanned eight bytes at a time: a word without a space, control or non-ASCII byte
+     * is skipped whole, and otherwise each candidate byte in it is looked at in turn. A line that
+     * runs past the buffer is scanned again from its start once more input has been read.
+     */
+    public boolean nextLine() {
+        while (true) {
+            int scanned = scanLine();
+            if (scanned == 1) break;
+            if (scanned == 0 && eof) {
+                if (position == limit) return false;
+                // the last line has no line break
+                lineStart = position;
+                lineEnd = limit;
+                position = limit;
+                addSeparator(limit);
+                break;
+            }
+            fill();
+        }
+        if (fields > 1) {
+            // String.split drops empty fields at the end, but keeps a line without spaces whole
+            while (fields > 0 && separators[fields - 1] + 1 == separators[fields]) {
+                fields--;
+            }
+        }
+        return true;
+    }
+
+    // 1 when a whole line was found, 0 when the buffer ran out, -1 when a break needs more bytes
+    private int scanLine() {
+        int spaces = 0;
+        int[] found = separators;
+        found[0] = position - 1;
+        for (int i = position; i < limit; i += 8) {
+            long word = (long) WORDS.get(buffer, i);
+            // every control byte, space and non-ASCII byte is a candidate, taken lowest first
+            for (long candidates = lessThan(word, 0x21) | (word & HIGH_BITS); candidates != 0; candidates &= candidates - 1) {
+                int at = i + (Long.numberOfTrailingZeros(candidates) >>> 3);
+                if (at >= limit) break;
+                byte b = buffer[at];
+                int length = 0;
+                if (b == ' ') {
+                    if (++spaces == found.length) found = separators = Arrays.copyOf(found, found.length * 2);
+                    found[spaces] = at;
+                    continue;
+                } else if (b == '\n') {
+                    length = 1;
+                } else if (b == '\r') {
+                    // \r\n is one line break, so look at the next byte first
+                    if (at + 1 == limit && !eof) return -1;
+                    length = at + 1 < limit && buffer[at + 1] == '\n' ? 2 : 1;
+                } else if (b < 0) {
+                    length = unicodeSeparator(at);
+                    if (length < 0) return -1;
+                }
+                if (length > 0) {
+                    fields = spaces;
+                    addSeparator(at);
+                    lineStart = position;
+                    lineEnd = at;
+                    position = at + length;
+                    return 1;
+                }
+            }
+        }
+        fields = spaces;
+        return 0;
+    }
+
+    // marks each byte that is zero; bytes above a marked one may be marked too
+    private static long zeroBytes(long word) {
+        return (word - 0x0101010101010101L) & ~word & HIGH_BITS;
+    }
+
+    // marks each byte below n, which must be at most 128; bytes above a marked one may be marked too
+    private static long lessThan(long word, int n) {
+        return (word - 0x0101010101010101L * n) & ~word & HIGH_BITS;
+    }
+
+    // U+0085, U+2028 and U+2029 also end a line for Scanner; -1 when more bytes are needed
+    private int unicodeSeparator(int at) {
+        if (latin1) return buffer[at] == (byte) 0x85 ? 1 : 0;
+        if (!utf8) return 0;
+        if (buffer[at] == (byte) 0xC2) {
+            if (at + 1 >= limit) return eof ? 0 : -1;
+            return buffer[at + 1] == (byte) 0x85 ? 2 : 0;
+        }
+        if (buffer[at] == (byte) 0xE2) {
+            if (at + 2 >= limit) return eof ? 0 : -1;
+            return buffer[at + 1] == (byte) 0x80 && (buffer[at + 2] == (byte) 0xA8 || buffer[at + 2] == (byte) 0xA9) ? 3 : 0;
+        }
+        return 0;
+    }
+
+    /*
+     * Keeps the unfinished line at the front of the buffer, growing it when the line fills it. The
+     * last eight bytes are never filled, so a word can be read at any position before the limit.
+     */
+    private void fill() {
+        int kept = limit - position;
+        if (kept == buffer.length - 8) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        } else if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, kept);
+        }
+        position = 0;
+        limit = kept;
+        try {
+            int read = in.read(buffer, limit, buffer.length - 8 - limit);
+            if (read < 0) eof = true;
+            else limit += read;
+        } catch (IOException e) {
+            eof = true;
+        }
+    }
+
+    private void addSeparator(int at) {
+        if (fields + 1 == separators.length) {
+            separators = Arrays.copyOf(separators, separators.length * 2);
+        }
+        separators[++fields] = at;
+    }
+
+    public int fieldCount() {
+        return fields;
+    }
+
+    // one of the command constants, or -1 for anything else
+    public int command() {
+        checkField(0);
+        int start = separators[0] + 1, length = separators[1] - start;
+        for (int c = 0; c < commands.length; c++) {
+            if (commandLengths[c] == length && matches(start, length, commands[c])) return c;
+        }
+        return -1;
+    }
+
+    // the field is compared a word at a time; the bytes past its end are masked off the last word
+    private boolean matches(int start, int length, long[] words) {
+        for (int w = 0; w < words.length; w++) {
+            long word = (long) WORDS.get(buffer, start + (w << 3));
+            int left = length - (w << 3);
+            if (left < 8) word &= (1L << (left << 3)) - 1;
+            if (word != words[w]) return false;
+        }
+        return true;
+    }
+
+    public String string(int field) {
+        checkField(field);
+        return symbols.intern(buffer, separators[field] + 1, separators[field + 1]);
+    }
+
+    public int intField(int field) {
+        checkField(field);
+        int i = separators[field] + 1, end = separators[field + 1];
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i++] == '-';
+        }
+        // nine digits cannot overflow an int
+        if (i == end || end - i > 9) return Integer.parseInt(text(field));
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) return Integer.parseInt(text(field));
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Plain decimals with at most 2^24 as their digits and ten digits after the point are divided
+     * out exactly; every other form, exponents included, goes to Float.parseFloat. Up to eight
+     * characters after the sign are parsed as one word.
+     */
+    public float floatField(int field) {
+        checkField(field);
+        int i = separators[field] + 1, end = separators[field + 1];
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i++] == '-';
+        }
+        int length = end - i;
+        if (length == 0 || length > 8) return parseDecimal(field, i, end, negative);
+        long mask = -1L >>> ((8 - length) << 3);
+        long word = (long) WORDS.get(buffer, i) & mask;
+        int decimals = 0;
+        long dots = zeroBytes(word ^ DOTS) & mask;
+        if (dots != 0) {
+            // close the gap the point leaves; a second point fails the digit test below
+            int dot = Long.numberOfTrailingZeros(dots) >>> 3;
+            word = (word & ((1L << (dot << 3)) - 1)) | (word >>> (dot << 3) >>> 8 << (dot << 3));
+            decimals = length - dot - 1;
+            length--;
+            mask >>>= 8;
+        }
+        if (length == 0 || (word & 0xF0F0F0F0F0F0F0F0L) != (ZEROS & mask)
+                || ((word + 0x0606060606060606L) & 0xF0F0F0F0F0F0F0F0L & mask) != (ZEROS & mask)) {
+            return Float.parseFloat(text(field));
+        }
+        // the digits, first one lowest, moved to the top so the missing ones lead as zeros
+        long digits = (word - (ZEROS & mask)) << ((8 - length) << 3);
+        digits = (digits * 10 + (digits >>> 8)) & 0x00FF00FF00FF00FFL;
+        digits = (digits * 100 + (digits >>> 16)) & 0x0000FFFF0000FFFFL;
+        int mantissa = (int) ((digits * 10000 + (digits >>> 32)) & 0xFFFFFFFFL);
+        if (mantissa > MAX_FLOAT_MANTISSA) return Float.parseFloat(text(field));
+        float value = decimals > 0 ? mantissa / FLOAT_POWERS[decimals] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private float parseDecimal(int field, int i, int end, boolean negative) {
+        int mantissa = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit >= 0 && digit <= 9) {
+                mantissa = mantissa * 10 + digit;
+                if (mantissa > MAX_FLOAT_MANTISSA) return Float.parseFloat(text(field));
+                digits++;
+                if (decimals >= 0) decimals++;
+            } else if (buffer[i] == '.' && decimals < 0) {
+                decimals = 0;
+            } else {
+                return Float.parseFloat(text(field));
+            }
+        }
+        if (digits == 0 || decimals >= FLOAT_POWERS.length) return Float.parseFloat(text(field));
+        float value = decimals > 0 ? mantissa / FLOAT_POWERS[decimals] : mantissa;
+        return negative ? -value : value;
+    }
+
+    private String text(int field) {
+        return new String(buffer, separators[field] + 1, separators[field + 1] - separators[field] - 1, charset);
+    }
+
+    private void checkField(int field) {
+        if (field >= fields) {
+            throw new ArrayIndexOutOfBoundsException("Index " + field + " out of bounds for length " + fields);
+        }
+    }
+}
+
+/**
+ * Interns byte slices as Strings, so an id seen on many lines is decoded once and every later
+ * lookup finds it without allocating.
+ * <p>
+ * Each slot of the open-addressing table holds one long key next to its String. A symbol of up to
+ * seven bytes is its own key, the bytes with the length in the top byte, so most ids are matched
+ * from the key alone. A longer one keys on a hash of all its bytes and its length, with 0xFF in the
+ * top byte, and on a match its bytes are compared with the copy kept in a byte arena. The slot
+ * comes from the top bits of the key times a multiplicative constant.
+ */
+class SymbolTable {
+    private static final long MIX = 0x9E3779B97F4A7C15L;
+    private static final long LONG_SYMBOL = 0xFF00000000000000L;
+
+    private final Charset charset;
+    private long[] slotKeys = new long[128];
+    // null for an empty slot
+    private String[] slotStrings = new String[128];
+    // where the bytes of a symbol longer than seven bytes start in the arena
+    private int[] slotBytes = new int[128];
+    // 64 - log2 of the slot count
+    private int shift = 64 - 7;
+    private byte[] arena = new byte[1 << 12];
+    private int arenaSize;
+    private int size;
+
+    public SymbolTable(Charset charset) {
+        this.charset = charset;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String intern(byte[] bytes, int from, int to) {
+        long key = to - from < 8 ? bytesAt(bytes, from, to) | (long) (to - from) << 56 : longKey(bytes, from, to);
+        String[] strings = slotStrings;
+        long[] keys = slotKeys;
+        int mask = strings.length - 1;
+        for (int slot = (int) ((key * MIX) >>> shift); ; slot = (slot + 1) & mask) {
+            String string = strings[slot];
+            if (string == null) return add(bytes, from, to, key, slot);
+            if (keys[slot] == key && ((key & LONG_SYMBOL) != LONG_SYMBOL || bytesEqual(slot, bytes, from, to))) {
+                return string;
+            }
+        }
+    }
+
+    // kept out of intern too, as most ids fit in the key
+    private boolean bytesEqual(int slot, byte[] bytes, int from, int to) {
+        return Arrays.equals(arena, slotBytes[slot], slotBytes[slot] + to - from, bytes, from, to);
+    }
+
+    // kept out of intern so the lookup stays small enough to inline
+    private String add(byte[] bytes, int from, int to, long key, int slot) {
+        if ((key & LONG_SYMBOL) == LONG_SYMBOL) {
+            if (arenaSize + to - from > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + to - from));
+            }
+            System.arraycopy(bytes, from, arena, arenaSize, to - from);
+            slotBytes[slot] = arenaSize;
+            arenaSize += to - from;
+        }
+        String string = new String(bytes, from, to - from, charset);
+        slotKeys[slot] = key;
+        slotStrings[slot] = string;
+        if (++size * 2 > slotStrings.length) rehash();
+        return string;
+    }
+
+    private void rehash() {
+        long[] oldKeys = slotKeys;
+        String[] oldStrings = slotStrings;
+        int[] oldBytes = slotBytes;
+        slotKeys = new long[oldKeys.length * 2];
+        slotStrings = new String[oldStrings.length * 2];
+        slotBytes = new int[oldBytes.length * 2];
+        shift--;
+        int mask = slotStrings.length - 1;
+        for (int old = 0; old < oldStrings.length; old++) {
+            if (oldStrings[old] == null) continue;
+            int slot = (int) ((oldKeys[old] * MIX) >>> shift);
+            while (slotStrings[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            slotKeys[slot] = oldKeys[old];
+            slotStrings[slot] = oldStrings[old];
+            slotBytes[slot] = oldBytes[old];
+        }
+    }
+
+    // 0xFF, then 24 bits of a hash of the bytes, then the length
+    private static long longKey(byte[] bytes, int from, int to) {
+        long hash = (to - from) * MIX;
+        for (int i = from; i < to; i += 8) {
+            hash = (hash ^ bytesAt(bytes, i, to)) * MIX;
+        }
+        hash ^= hash >>> 29;
+        return LONG_SYMBOL | (hash & 0x00FFFFFF00000000L) | (to - from);
+    }
+
+    // up to eight bytes from bytes[from, to) as a little-endian long, zero-padded
+    private static long bytesAt(byte[] bytes, int from, int to) {
+        int length = Math.min(to - from, 8);
+        if (from + 8 <= bytes.length) {
+            long word = (long) CommandReader.WORDS.get(bytes, from);
+            return length == 8 ? word : word & ((1L << (length << 3)) - 1);
+        }
+        long word = 0;
+        for (int i = 0; i < length; i++) {
+            word |= (bytes[from + i] & 0xFFL) << (i << 3);
+        }
+        return word;
+    }
+}
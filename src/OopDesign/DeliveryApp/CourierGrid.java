@@ -0,0 +1,318 @@
+package OopDesign.DeliveryApp;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Uniform grid over courier positions. A nearest query visits cells in square rings around the
+ * target and stops once no unvisited cell can hold a courier at the best distance found so far.
+ * The cell size follows the spread of the couriers: the grid is rebuilt whenever the box around
+ * them holds far more cells than couriers, or the couriers have doubled and crowd into few cells.
+ * <p>
+ * Couriers live in numbered slots whose positions sit in a primitive array, and each cell is a
+ * linked list threaded through the slots. Cells are found through an open-addressing table that
+ * keeps emptied cells, so once couriers have visited an area, moving them allocates nothing.
+ */
+class CourierGrid {
+    private static final int UNUSED = -2;
+    private static final int EMPTY = -1;
+
+    private long[] cellKeys;
+    private int[] cellHeads;
+    private int usedCells;
+    private int occupiedCells;
+
+    private DeliveryPerson[] couriers;
+    private long[] positions;
+    private int[] next;
+    private int[] prev;
+    private int[] cellOf;
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount;
+
+    private int cellSize;
+    private int size;
+    private int sizeAtRebuild;
+    private int minCellX, maxCellX, minCellY, maxCellY;
+    private final ThreadLocal<Candidates> nearestScratch = ThreadLocal.withInitial(() -> new Candidates(1));
+
+    public CourierGrid() {
+        this.cellSize = 1;
+        clearCells(16);
+        couriers = new DeliveryPerson[16];
+        positions = new long[16];
+        next = new int[16];
+        prev = new int[16];
+        cellOf = new int[16];
+        freeSlots = new int[16];
+    }
+
+    public void add(DeliveryPerson courier) {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == couriers.length) growSlots();
+            slot = slotCount++;
+        }
+        couriers[slot] = courier;
+        positions[slot] = courier.getPosition();
+        cellOf[slot] = -1;
+        courier.setGridSlot(slot);
+        link(slot);
+        size++;
+        rebuildIfNeeded();
+    }
+
+    public void remove(DeliveryPerson courier) {
+        int slot = courier.getGridSlot();
+        if (slot < 0 || couriers[slot] != courier) return;
+        unlink(slot);
+        couriers[slot] = null;
+        courier.setGridSlot(-1);
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    /**
+     * Re-files a courier whose position has changed since it was added or last moved.
+     */
+    public void move(DeliveryPerson courier) {
+        int slot = courier.getGridSlot();
+        long from = positions[slot];
+        long to = courier.getPosition();
+        positions[slot] = to;
+        if (cellKey(from) == cellKey(to)) return;
+        unlink(slot);
+        link(slot);
+        rebuildIfNeeded();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The unclaimed courier closest to the target by Manhattan distance, then with the fewest
+     * deliveries, then with the lowest rank. Null when every courier is claimed or the grid is empty.
+     */
+    public DeliveryPerson nearest(long target) {
+        Candidates best = nearestScratch.get();
+        best.size = 0;
+        search(target, best);
+        return best.size == 0 ? null : best.couriers[0];
+    }
+
+    /**
+     * Up to k unclaimed couriers closest to the target, best first, in the same order as nearest.
+     */
+    public List<DeliveryPerson> nearest(long target, int k) {
+        Candidates best = new Candidates(k);
+        search(target, best);
+        return Arrays.asList(best.couriers).subList(0, best.size);
+    }
+
+    private void search(long target, Candidates best) {
+        if (size == 0) return;
+        int k = best.couriers.length;
+        int cx = cell(Locations.x(target));
+        int cy = cell(Locations.y(target));
+        // rings closer than this do not reach the occupied box
+        long firstRing = Math.max(Math.max(minCellX - (long) cx, cx - (long) maxCellX),
+                Math.max(minCellY - (long) cy, cy - (long) maxCellY));
+        long lastRing = Math.max(Math.max(cx - (long) minCellX, maxCellX - (long) cx),
+                Math.max(cy - (long) minCellY, maxCellY - (long) cy));
+        for (long ring = Math.max(firstRing, 0); ring <= lastRing; ring++) {
+            long fromX = Math.max(cx - ring, minCellX), toX = Math.min(cx + ring, maxCellX);
+            long fromY = Math.max(cy - ring, minCellY), toY = Math.min(cy + ring, maxCellY);
+            for (long x = fromX; x <= toX; x++) {
+                if (x == cx - ring || x == cx + ring) {
+                    for (long y = fromY; y <= toY; y++) {
+                        offerCell(target, (int) x, (int) y, best);
+                    }
+                } else {
+                    if (cy - ring >= minCellY) offerCell(target, (int) x, (int) (cy - ring), best);
+                    if (ring > 0 && cy + ring <= maxCellY) offerCell(target, (int) x, (int) (cy + ring), best);
+                }
+            }
+            // cells in the next ring are at least ring * cellSize + 1 away
+            if (best.size == k && best.distances[k - 1] <= ring * cellSize) break;
+        }
+    }
+
+    private void offerCell(long target, int cx, int cy, Candidates best) {
+        int entry = findCell(key(cx, cy));
+        if (entry < 0) return;
+        int k = best.couriers.length;
+        for (int slot = cellHeads[entry]; slot >= 0; slot = next[slot]) {
+            int distance = Locations.distance(target, positions[slot]);
+            // only couriers that could make the list are worth touching
+            if (best.size == k && distance > best.distances[k - 1]) continue;
+            DeliveryPerson courier = couriers[slot];
+            if (!courier.isClaimed()) best.offer(courier, distance);
+        }
+    }
+
+    /**
+     * The best k couriers seen so far, kept sorted by insertion.
+     */
+    private static class Candidates {
+        final DeliveryPerson[] couriers;
+        final int[] distances;
+        int size;
+
+        Candidates(int k) {
+            couriers = new DeliveryPerson[k];
+            distances = new int[k];
+        }
+
+        void offer(DeliveryPerson courier, int distance) {
+            int i = size;
+            while (i > 0 && isBetter(courier, distance, couriers[i - 1], distances[i - 1])) {
+                i--;
+            }
+            if (i == couriers.length) return;
+            int last = Math.min(size, couriers.length - 1);
+            System.arraycopy(couriers, i, couriers, i + 1, last - i);
+            System.arraycopy(distances, i, distances, i + 1, last - i);
+            couriers[i] = courier;
+            distances[i] = distance;
+            if (size < couriers.length) size++;
+        }
+
+        private static boolean isBetter(DeliveryPerson candidate, int distance, DeliveryPerson current, int currentDistance) {
+            if (distance != currentDistance) return distance < currentDistance;
+            if (candidate.getDeliveries() != current.getDeliveries()) {
+                return candidate.getDeliveries() < current.getDeliveries();
+            }
+            return candidate.getRank() < current.getRank();
+        }
+    }
+
+    private void link(int slot) {
+        long key = cellKey(positions[slot]);
+        int entry = findCell(key);
+        if (entry < 0) entry = addCell(key);
+        int head = cellHeads[entry];
+        if (head == EMPTY) occupiedCells++;
+        next[slot] = head;
+        prev[slot] = -1;
+        if (head >= 0) prev[head] = slot;
+        cellHeads[entry] = slot;
+        cellOf[slot] = entry;
+        int cx = (int) (key >> 32), cy = (int) key;
+        minCellX = Math.min(minCellX, cx);
+        maxCellX = Math.max(maxCellX, cx);
+        minCellY = Math.min(minCellY, cy);
+        maxCellY = Math.max(maxCellY, cy);
+    }
+
+    private void unlink(int slot) {
+        int entry = cellOf[slot];
+        if (prev[slot] >= 0) next[prev[slot]] = next[slot];
+        else cellHeads[entry] = next[slot];
+        if (next[slot] >= 0) prev[next[slot]] = prev[slot];
+        if (cellHeads[entry] == EMPTY) occupiedCells--;
+        cellOf[slot] = -1;
+    }
+
+    private int findCell(long key) {
+        int mask = cellKeys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (cellHeads[i] == UNUSED) return -1;
+            if (cellKeys[i] == key) return i;
+        }
+    }
+
+    private int addCell(long key) {
+        if (2 * (usedCells + 1) > cellKeys.length) growCells();
+        int mask = cellKeys.length - 1;
+        int i = hash(key) & mask;
+        while (cellHeads[i] != UNUSED) {
+            i = (i + 1) & mask;
+        }
+        cellKeys[i] = key;
+        cellHeads[i] = EMPTY;
+        usedCells++;
+        return i;
+    }
+
+    // drops emptied cells, doubling the table only when the occupied ones need the room
+    private void growCells() {
+        int capacity = cellKeys.length;
+        while (4 * (occupiedCells + 1) > capacity) capacity *= 2;
+        relinkAll(capacity);
+    }
+
+    // re-links every linked slot; a slot being linked by the caller is skipped
+    private void relinkAll(int capacity) {
+        clearCells(capacity);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (couriers[slot] != null && cellOf[slot] >= 0) link(slot);
+        }
+    }
+
+    private void clearCells(int capacity) {
+        if (cellKeys == null || cellKeys.length != capacity) {
+            cellKeys = new long[capacity];
+            cellHeads = new int[capacity];
+        }
+        Arrays.fill(cellHeads, UNUSED);
+        usedCells = 0;
+        occupiedCells = 0;
+        minCellX = minCellY = Integer.MAX_VALUE;
+        maxCellX = maxCellY = Integer.MIN_VALUE;
+    }
+
+    private void growSlots() {
+        int capacity = couriers.length * 2;
+        couriers = Arrays.copyOf(couriers, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        cellOf = Arrays.copyOf(cellOf, capacity);
+    }
+
+    private void rebuildIfNeeded() {
+        long boxCells = ((long) maxCellX - minCellX + 1) * ((long) maxCellY - minCellY + 1);
+        boolean tooSparse = boxCells > 4L * Math.max(size, 16);
+        boolean tooDense = size >= 2 * Math.max(sizeAtRebuild, 8) && size > 4L * occupiedCells;
+        if (!tooSparse && !tooDense) return;
+
+        long minX = Long.MAX_VALUE, maxX = Long.MIN_VALUE, minY = Long.MAX_VALUE, maxY = Long.MIN_VALUE;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (couriers[slot] == null) continue;
+            minX = Math.min(minX, Locations.x(positions[slot]));
+            maxX = Math.max(maxX, Locations.x(positions[slot]));
+            minY = Math.min(minY, Locations.y(positions[slot]));
+            maxY = Math.max(maxY, Locations.y(positions[slot]));
+        }
+        long side = Math.max(maxX - minX, maxY - minY) + 1;
+        long cellsPerSide = (long) Math.ceil(Math.sqrt(size));
+        cellSize = (int) Math.min(Integer.MAX_VALUE, Math.max(1, (side + cellsPerSide - 1) / cellsPerSide));
+        sizeAtRebuild = size;
+        // room for every courier in its own cell, so relinking never grows the table midway
+        int capacity = 16;
+        while (capacity < 4L * (size + 1)) capacity *= 2;
+        relinkAll(capacity);
+    }
+
+    private int cell(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private long cellKey(long position) {
+        return key(cell(Locations.x(position)), cell(Locations.y(position)));
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,57 @@
+package OopDesign.DeliveryApp;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Measures the bytes allocated per orderFood call once the app has warmed up. Ids are built before
+ * timing so only the order path is counted; the run fails if it allocates at all.
+ */
+public class DeliveryAllocationBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // usage: DeliveryAllocationBenchmark [couriers] [restaurants] [users] [orders]
+    public static void main(String[] args) {
+        int couriers = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int restaurants = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int users = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int orders = args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000;
+
+        DeliveryApp app = DeliveryLoadHarness.populate(couriers, restaurants, users);
+        Random random = new Random(42);
+        String[] userIds = new String[orders];
+        String[] restaurantIds = new String[orders];
+        float[] costs = new float[orders];
+        for (int i = 0; i < orders; i++) {
+            userIds[i] = "U" + random.nextInt(users);
+            restaurantIds[i] = "R" + random.nextInt(restaurants);
+            costs[i] = 100 + random.nextInt(900);
+        }
+
+        // warmup, which also lets couriers spread over every address they will visit
+        for (int round = 0; round < 3; round++) {
+            place(app, userIds, restaurantIds, costs);
+        }
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        place(app, userIds, restaurantIds, costs);
+        long nanos = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("%d couriers, %d restaurants, %d users%n", couriers, restaurants, users);
+        System.out.printf("orderFood: %.0f ops/s, %.3f us/op, %.4f B/op (%d bytes over %d orders)%n",
+                orders / (nanos / 1e9), nanos / 1e3 / orders, (double) allocated / orders, allocated, orders);
+        if (allocated >= orders) {
+            throw new IllegalStateException("orderFood allocates " + (double) allocated / orders + " bytes per order");
+        }
+    }
+
+    private static void place(DeliveryApp app, String[] userIds, String[] restaurantIds, float[] costs) {
+        for (int i = 0; i < userIds.length; i++) {
+            app.orderFood(userIds[i], "home", restaurantIds[i], costs[i]);
+        }
+    }
+}
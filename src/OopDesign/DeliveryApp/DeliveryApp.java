@@ -0,0 +1,487 @@
+package OopDesign.DeliveryApp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Orders may be placed from many threads at once. Registrations take the app lock exclusively and
+ * orders share it; within an order the courier is claimed atomically, so no courier is assigned
+ * twice, and the grid has its own lock so nearest lookups run in parallel with each other.
+ */
+class DeliveryApp{
+    private String name;
+    private Map<String, DeliveryPerson> deliveryPersons;
+    private Map<String, Restaurant> restaurants;
+    private Map<String, User> users;
+    private CourierGrid courierGrid;
+    private final Leaderboard<User> userBoard = new Leaderboard<>(User::getTotalSpent);
+    private final Leaderboard<Restaurant> restaurantBoard = new Leaderboard<>(Restaurant::getAverageZarabotka);
+    private final Leaderboard<DeliveryPerson> courierBoard = new Leaderboard<>(DeliveryPerson::getZarabotka);
+    private boolean ranksStale;
+    private final StampedLock lock = new StampedLock();
+    private final StampedLock gridLock = new StampedLock();
+    private volatile DeliveryJournal journal;
+    private final DeliveryMetrics metrics = new DeliveryMetrics();
+    private static final int BATCH_CANDIDATES = 8;
+    // leftover rounds smaller than this are placed greedily; on batches of 256 and 1024 orders that
+    // keeps the pickup distance within 0.1% of matching every round, where 128 already adds 4%
+    static final int BATCH_MATCH_MIN_ORDERS = 32;
+
+    public DeliveryApp (String name){
+        this.name = name;
+        deliveryPersons = new HashMap<>();
+        restaurants = new HashMap<>();
+        users = new HashMap<>();
+        courierGrid = new CourierGrid();
+    }
+
+    public void registerDeliveryPerson (String id, String name, Location currentLocation){
+        long stamp = lock.writeLock();
+        DeliveryJournal journal;
+        long ticket;
+        try {
+            journal = writableJournal();
+            DeliveryPerson courier = new DeliveryPerson(id, name, currentLocation);
+            putDeliveryPerson(courier);
+            ticket = journal == null ? 0 : journal.deliveryPersonRegistered(courier);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitJournal(journal, ticket);
+    }
+
+    public void addRestaurant (String id, String name, Location location){
+        long stamp = lock.writeLock();
+        DeliveryJournal journal;
+        long ticket;
+        try {
+            journal = writableJournal();
+            Restaurant restaurant = new Restaurant(id, name, location);
+            putRestaurant(restaurant);
+            ticket = journal == null ? 0 : journal.restaurantAdded(restaurant);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitJournal(journal, ticket);
+    }
+
+    public void addUser (String id, String name){
+        long stamp = lock.writeLock();
+        DeliveryJournal journal;
+        long ticket;
+        try {
+            journal = writableJournal();
+            User user = new User(id, name);
+            putUser(user);
+            ticket = journal == null ? 0 : journal.userAdded(user);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitJournal(journal, ticket);
+    }
+
+    public void addAddress (String id, String addressName, Location location){
+        long stamp = lock.writeLock();
+        DeliveryJournal journal;
+        long ticket;
+        try {
+            if(!users.containsKey(id)) return;
+            journal = writableJournal();
+            User user = users.get(id);
+            Address address = user.addAddress(addressName, location);
+            ticket = journal == null ? 0 : journal.addressAdded(user, address);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        awaitJournal(journal, ticket);
+    }
+    public void orderFood(String userId, String userAddressName, String restaurantId, float cost){
+        long start = System.nanoTime();
+        try {
+            placeOrder(userId, userAddressName, restaurantId, cost);
+        } finally {
+            metrics.recordOrder(System.nanoTime() - start);
+        }
+    }
+
+    private void placeOrder(String userId, String userAddressName, String restaurantId, float cost) {
+        long stamp = readLockWithFreshRanks();
+        DeliveryJournal journal;
+        long ticket;
+        try {
+            if(!users.containsKey(userId) || !restaurants.containsKey(restaurantId)) {
+                metrics.orderRejected();
+                return;
+            }
+            User user = users.get(userId);
+            Address address = user.getAddress(userAddressName);
+            Restaurant restaurant = restaurants.get(restaurantId);
+            journal = writableJournal();
+            DeliveryPerson d = claimNearestDeliveryPerson(restaurant.getPosition());
+            try {
+                // the journal records orders in the order their totals were added up
+                long gridStamp = gridLock.writeLock();
+                try {
+                    applyOrder(user, address, restaurant, d, cost);
+                    ticket = journal == null ? 0 : journal.orderPlaced(user, address, restaurant, d, cost);
+                } finally {
+                    gridLock.unlockWrite(gridStamp);
+                }
+                userBoard.update(user);
+                restaurantBoard.update(restaurant);
+                courierBoard.update(d);
+                metrics.orderPlaced(restaurantId, d.getId());
+            } finally {
+                d.release();
+            }
+        } finally {
+            lock.unlock(stamp);
+        }
+        awaitJournal(journal, ticket);
+    }
+
+    // the journal to record a change in, read under the app lock so a close cannot take it away
+    // before the change is recorded; throws a failed writer's error before the change is made
+    private DeliveryJournal writableJournal() {
+        DeliveryJournal journal = this.journal;
+        if (journal != null) journal.checkWritable();
+        return journal;
+    }
+
+    // waits until the journal holds the change, so it survives a crash once the call returns
+    private static void awaitJournal(DeliveryJournal journal, long ticket) {
+        if (ticket > 0) journal.awaitDurable(ticket);
+    }
+
+    /*
+     * Used by DeliveryJournal. The put and apply methods take no locks, because the journal only
+     * calls them while rebuilding an app that no other thread can see yet.
+     */
+
+    void putDeliveryPerson(DeliveryPerson courier) {
+        DeliveryPerson replaced = deliveryPersons.put(courier.getId(), courier);
+        if (replaced != null) courierGrid.remove(replaced);
+        courierGrid.add(courier);
+        ranksStale = true;
+    }
+
+    void putRestaurant(Restaurant restaurant) {
+        restaurants.put(restaurant.getId(), restaurant);
+        ranksStale = true;
+    }
+
+    void putUser(User user) {
+        users.put(user.getId(), user);
+        ranksStale = true;
+    }
+
+    // callers hold the grid's write lock, or own the app alone
+    void applyOrder(User user, Address address, Restaurant restaurant, DeliveryPerson d, float cost) {
+        user.addOrder(cost);
+        restaurant.addOrder(cost);
+        d.addOrder(restaurant.getPosition(), address.getPosition());
+        courierGrid.move(d);
+    }
+
+    // the boards are rebuilt on the next read instead of being updated order by order
+    void markReplayed() {
+        ranksStale = true;
+    }
+
+    void attachJournal(DeliveryJournal journal) {
+        long stamp = lock.writeLock();
+        try {
+            this.journal = journal;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // no registration or order can run while the journal copies the state
+    byte[] snapshotState(DeliveryJournal journal) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            return journal.encodeSnapshot(deliveryPersons.values(), restaurants.values(), users.values());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private long readLockWithFreshRanks() {
+        long stamp = lock.readLock();
+        if (ranksStale) {
+            lock.unlockRead(stamp);
+            stamp = lock.writeLock();
+            refreshRanks();
+            stamp = lock.tryConvertToReadLock(stamp);
+        }
+        return stamp;
+    }
+
+    // ties go to the first entity in map order, which shifts as the maps grow
+    private void refreshRanks() {
+        if (!ranksStale) return;
+        int rank = 0;
+        for (DeliveryPerson dp : deliveryPersons.values()) {
+            dp.setRank(rank++);
+        }
+        rank = 0;
+        for (Restaurant restaurant : restaurants.values()) {
+            restaurant.setRank(rank++);
+        }
+        rank = 0;
+        for (User user : users.values()) {
+            user.setRank(rank++);
+        }
+        courierBoard.rebuild(deliveryPersons.values());
+        restaurantBoard.rebuild(restaurants.values());
+        userBoard.rebuild(users.values());
+        ranksStale = false;
+    }
+
+    /**
+     * Assigns a window of orders together, choosing couriers so the total distance they travel to
+     * the restaurants is as small as possible. The n orders from one restaurant consider only its
+     * n + BATCH_CANDIDATES - 1 nearest free couriers; orders left without one are matched again in
+     * another round once the assigned couriers have moved. Once fewer than BATCH_MATCH_MIN_ORDERS
+     * orders are pending, including a batch that small to begin with, each takes the nearest free
+     * courier in turn, as orderFood would. Orders are validated like orderFood before any is
+     * assigned. Returns the total distance couriers travel to the restaurants.
+     */
+    public long orderFoodBatch(List<FoodOrder> batch){
+        return orderFoodBatch(batch, BATCH_MATCH_MIN_ORDERS);
+    }
+
+    // matchMinOrders 0 always matches, Integer.MAX_VALUE always places orders one by one
+    long orderFoodBatch(List<FoodOrder> batch, int matchMinOrders){
+        long total = 0;
+        DeliveryJournal journal;
+        long ticket = 0;
+        long stamp = readLockWithFreshRanks();
+        try {
+            journal = writableJournal();
+            List<User> orderUsers = new ArrayList<>(batch.size());
+            List<Restaurant> orderRestaurants = new ArrayList<>(batch.size());
+            Address[] orderAddresses = new Address[batch.size()];
+            List<Float> orderCosts = new ArrayList<>(batch.size());
+            for (FoodOrder order : batch) {
+                if(!users.containsKey(order.getUserId()) || !restaurants.containsKey(order.getRestaurantId())) continue;
+                User user = users.get(order.getUserId());
+                orderAddresses[orderUsers.size()] = user.getAddress(order.getUserAddressName());
+                orderUsers.add(user);
+                orderRestaurants.add(restaurants.get(order.getRestaurantId()));
+                orderCosts.add(order.getCost());
+            }
+
+            int[] pending = new int[orderUsers.size()];
+            Arrays.setAll(pending, i -> i);
+            DeliveryPerson[] assigned = new DeliveryPerson[orderUsers.size()];
+            while (pending.length > 0) {
+                if (pending.length < matchMinOrders) {
+                    greedyRound(pending, orderRestaurants, assigned);
+                } else {
+                    matchRound(pending, orderRestaurants, assigned);
+                }
+                int[] next = new int[pending.length];
+                int left = 0;
+                boolean any = false;
+                for (int order : pending) {
+                    if (assigned[order] == null) next[left++] = order;
+                    else any = true;
+                }
+                // every candidate was claimed elsewhere; take the first order the slow way
+                if (!any) {
+                    assigned[pending[0]] = claimNearestDeliveryPerson(orderRestaurants.get(pending[0]).getPosition());
+                    System.arraycopy(next, 1, next, 0, --left);
+                }
+
+                long gridStamp = gridLock.writeLock();
+                try {
+                    for (int order : pending) {
+                        DeliveryPerson d = assigned[order];
+                        if (d == null) continue;
+                        Restaurant restaurant = orderRestaurants.get(order);
+                        total += Locations.distance(restaurant.getPosition(), d.getPosition());
+                        applyOrder(orderUsers.get(order), orderAddresses[order], restaurant, d, orderCosts.get(order));
+                        if (journal != null) {
+                            ticket = journal.orderPlaced(orderUsers.get(order), orderAddresses[order], restaurant, d, orderCosts.get(order));
+                        }
+                    }
+                } finally {
+                    gridLock.unlockWrite(gridStamp);
+                }
+                for (int order : pending) {
+                    if (assigned[order] == null) continue;
+                    userBoard.update(orderUsers.get(order));
+                    restaurantBoard.update(orderRestaurants.get(order));
+                    courierBoard.update(assigned[order]);
+                    metrics.orderPlaced(orderRestaurants.get(order).getId(), assigned[order].getId());
+                    assigned[order].release();
+                }
+                pending = Arrays.copyOf(next, left);
+            }
+        } finally {
+            lock.unlock(stamp);
+        }
+        awaitJournal(journal, ticket);
+        return total;
+    }
+
+    // matches the pending orders to nearby couriers and claims them, leaving losers unassigned
+    private void matchRound(int[] pending, List<Restaurant> orderRestaurants, DeliveryPerson[] assigned) {
+        Map<Restaurant, Integer> groupIndex = new IdentityHashMap<>();
+        List<Restaurant> groups = new ArrayList<>();
+        int[] groupOf = new int[pending.length];
+        List<Integer> groupSizes = new ArrayList<>();
+        for (int i = 0; i < pending.length; i++) {
+            Restaurant restaurant = orderRestaurants.get(pending[i]);
+            Integer group = groupIndex.get(restaurant);
+            if (group == null) {
+                group = groups.size();
+                groupIndex.put(restaurant, group);
+                groups.add(restaurant);
+                groupSizes.add(0);
+            }
+            groupOf[i] = group;
+            groupSizes.set(group, groupSizes.get(group) + 1);
+        }
+
+        Map<DeliveryPerson, Integer> courierIndex = new IdentityHashMap<>();
+        List<DeliveryPerson> couriers = new ArrayList<>();
+        int[] offsets = new int[groups.size() + 1];
+        int[] targets = new int[pending.length + groups.size() * (BATCH_CANDIDATES - 1)];
+        long[] costs = new long[targets.length];
+        int edges = 0;
+        long stamp = gridLock.readLock();
+        try {
+            if (courierGrid.size() == 0) throw new NoSuchElementException("No value present");
+            for (int g = 0; g < groups.size(); g++) {
+                long restaurant = groups.get(g).getPosition();
+                // enough couriers for every order from here, plus some slack to trade with others
+                List<DeliveryPerson> nearest = courierGrid.nearest(restaurant, groupSizes.get(g) + BATCH_CANDIDATES - 1);
+                for (int rank = 0; rank < nearest.size(); rank++) {
+                    DeliveryPerson d = nearest.get(rank);
+                    Integer courier = courierIndex.get(d);
+                    if (courier == null) {
+                        courier = couriers.size();
+                        courierIndex.put(d, courier);
+                        couriers.add(d);
+                    }
+                    // the ranks of all orders add up to less than one unit of distance, so they
+                    // only break ties between equally short assignments, as orderFood would
+                    targets[edges] = courier;
+                    costs[edges++] = (long) Locations.distance(restaurant, d.getPosition()) * targets.length + rank;
+                }
+                offsets[g + 1] = edges;
+            }
+        } finally {
+            gridLock.unlockRead(stamp);
+        }
+        int[] match = BatchMatcher.match(groupOf, groups.size(), couriers.size(), offsets, targets, costs);
+        for (int i = 0; i < pending.length; i++) {
+            if (match[i] < 0) continue;
+            if (couriers.get(match[i]).tryClaim()) {
+                assigned[pending[i]] = couriers.get(match[i]);
+            } else {
+                metrics.claimConflict();
+            }
+        }
+    }
+
+    // claims the nearest free courier for each pending order in turn, until none is left
+    private void greedyRound(int[] pending, List<Restaurant> orderRestaurants, DeliveryPerson[] assigned) {
+        for (int order : pending) {
+            DeliveryPerson d = tryClaimNearestDeliveryPerson(orderRestaurants.get(order).getPosition());
+            if (d == null) return;
+            assigned[order] = d;
+        }
+    }
+
+    private DeliveryPerson claimNearestDeliveryPerson(long restaurant) {
+        long start = System.nanoTime();
+        DeliveryPerson d;
+        // null means every courier is out on another order; one frees up shortly
+        while ((d = tryClaimNearestDeliveryPerson(restaurant)) == null) {
+            Thread.onSpinWait();
+        }
+        metrics.recordSelection(System.nanoTime() - start);
+        return d;
+    }
+
+    // the nearest courier, claimed, or null when every courier is claimed
+    private DeliveryPerson tryClaimNearestDeliveryPerson(long restaurant) {
+        while (true) {
+            DeliveryPerson d;
+            long stamp = gridLock.readLock();
+            try {
+                if (courierGrid.size() == 0) throw new NoSuchElementException("No value present");
+                d = courierGrid.nearest(restaurant);
+            } finally {
+                gridLock.unlockRead(stamp);
+            }
+            if (d == null || d.tryClaim()) return d;
+            metrics.claimConflict();
+        }
+    }
+
+    public DeliveryMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Collection<DeliveryPerson> getDeliveryPersons() {
+        long stamp = lock.readLock();
+        try {
+            return List.copyOf(deliveryPersons.values());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public void printUsers() {
+        topUsers(Integer.MAX_VALUE).forEach(System.out::println);
+    }
+
+    public void printRestaurants(){
+        topRestaurants(Integer.MAX_VALUE).forEach(System.out::println);
+    }
+
+    public void printDeliveryPeople(){
+        topDeliveryPeople(Integer.MAX_VALUE).forEach(System.out::println);
+    }
+
+    public List<User> topUsers(int n) {
+        long stamp = readLockWithFreshRanks();
+        try {
+            return userBoard.top(n);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    public List<Restaurant> topRestaurants(int n) {
+        long stamp = readLockWithFreshRanks();
+        try {
+            return restaurantBoard.top(n);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+    public List<DeliveryPerson> topDeliveryPeople(int n) {
+        long stamp = readLockWithFreshRanks();
+        try {
+            return courierBoard.top(n);
+        } finally {
+            lock.unlock(stamp);
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package OopDesign.DeliveryApp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times the same orders placed through repeated orderFood and through orderFoodBatch, with the
+ * batch always matched, always placed greedily, and with the default cutoff that matches only
+ * rounds of at least DeliveryApp.BATCH_MATCH_MIN_ORDERS orders. Every run starts from the same
+ * app, and the batched runs also report the average distance couriers travel to the restaurants,
+ * which is what matching buys with its extra time.
+ * <p>
+ * Measured on one core, in steady state: a batch of 1024 orders is matched in about 9 us an order,
+ * 40-49 us without BatchMatcher skipping dead nodes, against 5-7 us for greedy placement or
+ * orderFood, and its pickup distance is 10-20% shorter than greedy's.
+ */
+public class DeliveryBatchBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    // usage: DeliveryBatchBenchmark [couriers] [restaurants] [users] [ordersPerSize]
+    public static void main(String[] args) {
+        int couriers = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int restaurants = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int users = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int ordersPerSize = args.length > 3 ? Integer.parseInt(args[3]) : 8000;
+
+        System.out.printf("%d couriers, %d restaurants, %d users, cutoff %d%n", couriers, restaurants, users,
+                DeliveryApp.BATCH_MATCH_MIN_ORDERS);
+        System.out.printf("%8s %14s %14s %8s %14s %8s %14s %8s%n", "batch", "orderFood ns", "matched ns", "pickup",
+                "greedy ns", "pickup", "cutoff ns", "pickup");
+        int[] modes = {-1, 0, Integer.MAX_VALUE, DeliveryApp.BATCH_MATCH_MIN_ORDERS};
+        for (int size = 1; size <= couriers * 2; size *= 2) {
+            List<FoodOrder> batch = batch(size, restaurants, users, size);
+            int repeats = Math.max(1, ordersPerSize / size);
+            long[] nanos = new long[modes.length];
+            long[] pickup = new long[modes.length];
+            Arrays.fill(nanos, Long.MAX_VALUE);
+            // the fastest of a few runs, the one least disturbed by the JIT and the machine
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int m = 0; m < modes.length; m++) {
+                    long[] result = run(couriers, restaurants, users, batch, repeats, modes[m]);
+                    nanos[m] = Math.min(nanos[m], result[0]);
+                    pickup[m] = result[1];
+                }
+            }
+            double orders = (double) size * repeats;
+            System.out.printf("%8d %14.0f %14.0f %8.1f %14.0f %8.1f %14.0f %8.1f%n", size, nanos[0] / orders,
+                    nanos[1] / orders, pickup[1] / orders, nanos[2] / orders, pickup[2] / orders,
+                    nanos[3] / orders, pickup[3] / orders);
+        }
+    }
+
+    private static List<FoodOrder> batch(int size, int restaurants, int users, long seed) {
+        Random random = new Random(seed);
+        List<FoodOrder> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(new FoodOrder("U" + random.nextInt(users), "home", "R" + random.nextInt(restaurants), 100 + random.nextInt(900)));
+        }
+        return batch;
+    }
+
+    // nanoseconds and total pickup distance; matchMinOrders -1 places the orders through orderFood
+    private static long[] run(int couriers, int restaurants, int users, List<FoodOrder> batch, int repeats, int matchMinOrders) {
+        DeliveryApp app = populate(couriers, restaurants, users);
+        long pickup = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < repeats; r++) {
+            if (matchMinOrders < 0) {
+                for (FoodOrder order : batch) {
+                    app.orderFood(order.getUserId(), order.getUserAddressName(), order.getRestaurantId(), order.getCost());
+                }
+            } else {
+                pickup += app.orderFoodBatch(batch, matchMinOrders);
+            }
+        }
+        return new long[]{System.nanoTime() - start, pickup};
+    }
+
+    // the same app every run, unlike DeliveryLoadHarness.populate
+    private static DeliveryApp populate(int couriers, int restaurants, int users) {
+        Random random = new Random(42);
+        DeliveryApp app = new DeliveryApp("Batch");
+        for (int i = 0; i < couriers; i++) {
+            app.registerDeliveryPerson("D" + i, "Courier" + i, LocationCreator.create(random.nextInt(10_000), random.nextInt(10_000)));
+        }
+        for (int i = 0; i < restaurants; i++) {
+            app.addRestaurant("R" + i, "Restaurant" + i, LocationCreator.create(random.nextInt(10_000), random.nextInt(10_000)));
+        }
+        for (int i = 0; i < users; i++) {
+            app.addUser("U" + i, "User" + i);
+            app.addAddress("U" + i, "home", LocationCreator.create(random.nextInt(10_000), random.nextInt(10_000)));
+        }
+        return app;
+    }
+}
@@ -0,0 +1,744 @@
+package OopDesign.DeliveryApp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of a DeliveryApp's registrations and orders.
+ * <p>
+ * The app appends each event while it still holds its locks, so the journal lists events in the
+ * order they were applied. A writer thread takes everything appended so far, writes it as one
+ * frame {@code length, crc32, events} and forces it to disk. Callers waiting for their event share
+ * that fsync with every event appended alongside it. An order records the courier it was given,
+ * so a replay applies it directly instead of searching for a courier again.
+ * <p>
+ * The journal is split into segments named after the number of events before them. A snapshot
+ * starts a new segment, writes every entity with its totals and then deletes the older segments.
+ * Opening a journal loads the snapshot, replays the segments after it and cuts off a frame that a
+ * crash left half written at the end of the last segment.
+ */
+public class DeliveryJournal implements Closeable {
+
+    private static final int SNAPSHOT_MAGIC = 0x44534E50;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SNAPSHOT = "snapshot.bin";
+    private static final long MAX_SEGMENT_SIZE = 1L << 30;
+
+    private static final byte REGISTER_DELIVERY_PERSON = 1;
+    private static final byte ADD_RESTAURANT = 2;
+    private static final byte ADD_USER = 3;
+    private static final byte ADD_ADDRESS = 4;
+    private static final byte ORDER_FOOD = 5;
+
+    private final Path directory;
+    private final DeliveryApp app;
+    private final boolean syncEachCall;
+    private final Thread writer;
+    private final ScheduledExecutorService snapshotter;
+    private final ScheduledFuture<?> periodicSnapshots;
+    private final Object snapshotLock = new Object();
+    private volatile long snapshotEvents;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hasPending = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private ByteSink pending = new ByteSink(1 << 16);
+    private ByteSink spare = new ByteSink(1 << 16);
+    private long appended;
+    private long durable;
+    private long events;
+    private long frames;
+    private int nextEntityId;
+    private FileChannel segment;
+    private long segmentStart;
+    // set under the lock; volatile so the app can check it before changing anything
+    private volatile IOException failure;
+    private boolean closed;
+
+    private DeliveryJournal(Path directory, DeliveryApp app, boolean syncEachCall, long snapshotIntervalMillis,
+                            long events, int nextEntityId, long segmentStart, long snapshotEvents) throws IOException {
+        this.directory = directory;
+        this.app = app;
+        this.syncEachCall = syncEachCall;
+        this.events = events;
+        this.nextEntityId = nextEntityId;
+        this.snapshotEvents = snapshotEvents;
+        this.segmentStart = segmentStart;
+        this.segment = FileChannel.open(segmentPath(directory, segmentStart),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        writer = new Thread(this::writeLoop, "delivery-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        if (snapshotIntervalMillis > 0) {
+            snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "delivery-journal-snapshots");
+                thread.setDaemon(true);
+                return thread;
+            });
+            periodicSnapshots = snapshotter.scheduleWithFixedDelay(() -> {
+                try {
+                    if (getEventCount() > snapshotEvents) snapshot();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, snapshotIntervalMillis, snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            snapshotter = null;
+            periodicSnapshots = null;
+        }
+    }
+
+    public static DeliveryJournal open(Path directory, String appName) throws IOException {
+        return open(directory, appName, true, 60_000);
+    }
+
+    /**
+     * Rebuilds the app kept in the directory and journals its changes from then on. With
+     * syncEachCall, app calls return once their change is on disk; otherwise the writer thread
+     * forces changes shortly after they are made. A positive snapshotIntervalMillis takes a
+     * snapshot that often whenever there are new events.
+     */
+    public static DeliveryJournal open(Path directory, String appName, boolean syncEachCall, long snapshotIntervalMillis) throws IOException {
+        Files.createDirectories(directory);
+        Replay replay = new Replay(new DeliveryApp(appName));
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) replay.loadSnapshot(snapshot);
+        long covered = replay.events;
+        long[] starts = segmentStarts(directory);
+        for (int i = 0; i < starts.length; i++) {
+            replay.replaySegment(segmentPath(directory, starts[i]), starts[i], i == starts.length - 1);
+        }
+        replay.app.markReplayed();
+        long current = starts.length > 0 ? starts[starts.length - 1] : replay.events;
+        DeliveryJournal journal = new DeliveryJournal(directory, replay.app, syncEachCall, snapshotIntervalMillis,
+                replay.events, replay.nextEntityId, current, covered);
+        replay.app.attachJournal(journal);
+        return journal;
+    }
+
+    public DeliveryApp getApp() {
+        return app;
+    }
+
+    public long getEventCount() {
+        lock.lock();
+        try {
+            return events;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // number of frames written, each of them one fsync
+    public long getFrameCount() {
+        lock.lock();
+        try {
+            return frames;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /*
+     * Appends. The app calls these while holding its locks, after checkWritable and after making
+     * the change, so they do not fail: a writer failure that lands in between leaves the event
+     * unwritten and surfaces from awaitDurable and close. Each returns the ticket to pass to
+     * awaitDurable, or 0 when callers do not wait for the disk.
+     */
+
+    // throws the writer's failure, so the app can refuse a change before making it
+    void checkWritable() {
+        IOException failure = this.failure;
+        if (failure != null) throw new UncheckedIOException(failure);
+    }
+
+    long deliveryPersonRegistered(DeliveryPerson courier) {
+        lock.lock();
+        try {
+            int start = beginEvent(REGISTER_DELIVERY_PERSON);
+            courier.setJournalId(nextEntityId++);
+            pending.writeString(courier.getId());
+            pending.writeString(courier.getName());
+            pending.writeLong(courier.getPosition());
+            return endEvent(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long restaurantAdded(Restaurant restaurant) {
+        lock.lock();
+        try {
+            int start = beginEvent(ADD_RESTAURANT);
+            restaurant.setJournalId(nextEntityId++);
+            pending.writeString(restaurant.getId());
+            pending.writeString(restaurant.getName());
+            pending.writeLong(restaurant.getPosition());
+            return endEvent(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long userAdded(User user) {
+        lock.lock();
+        try {
+            int start = beginEvent(ADD_USER);
+            user.setJournalId(nextEntityId++);
+            pending.writeString(user.getId());
+            pending.writeString(user.getName());
+            return endEvent(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long addressAdded(User user, Address address) {
+        lock.lock();
+        try {
+            int start = beginEvent(ADD_ADDRESS);
+            address.setJournalId(nextEntityId++);
+            pending.writeVarint(user.getJournalId());
+            pending.writeString(address.getAddressName());
+            pending.writeLong(address.getPosition());
+            return endEvent(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long orderPlaced(User user, Address address, Restaurant restaurant, DeliveryPerson courier, float cost) {
+        lock.lock();
+        try {
+            int start = beginEvent(ORDER_FOOD);
+            pending.writeVarint(user.getJournalId());
+            pending.writeVarint(address.getJournalId());
+            pending.writeVarint(restaurant.getJournalId());
+            pending.writeVarint(courier.getJournalId());
+            pending.writeInt(Float.floatToRawIntBits(cost));
+            return endEvent(start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int beginEvent(byte type) {
+        // the app lets go of the journal before closing it
+        if (closed) throw new IllegalStateException("journal is closed");
+        int start = pending.size();
+        pending.writeByte(type);
+        return start;
+    }
+
+    private long endEvent(int start) {
+        appended += pending.size() - start;
+        events++;
+        if (start == 0) hasPending.signal();
+        return syncEachCall ? appended : 0;
+    }
+
+    void awaitDurable(long ticket) {
+        lock.lock();
+        try {
+            while (durable < ticket) {
+                if (failure != null) throw new UncheckedIOException(failure);
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // waits until everything appended so far is on disk
+    public void sync() {
+        long ticket;
+        lock.lock();
+        try {
+            ticket = appended;
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(ticket);
+    }
+
+    private void writeLoop() {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        CRC32 crc = new CRC32();
+        while (true) {
+            ByteSink batch;
+            FileChannel channel;
+            long end, endEvents;
+            lock.lock();
+            try {
+                while (pending.size() == 0 && !closed) {
+                    hasPending.awaitUninterruptibly();
+                }
+                if (pending.size() == 0) return;
+                batch = pending;
+                pending = spare;
+                spare = null;
+                end = appended;
+                endEvents = events;
+                channel = segment;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                crc.reset();
+                crc.update(batch.bytes(), 0, batch.size());
+                header.clear();
+                header.putInt(batch.size()).putInt((int) crc.getValue()).flip();
+                ByteBuffer body = ByteBuffer.wrap(batch.bytes(), 0, batch.size());
+                while (header.hasRemaining() || body.hasRemaining()) {
+                    channel.write(new ByteBuffer[]{header, body});
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                batch.clear();
+                spare = batch;
+                if (error == null) {
+                    durable = end;
+                    frames++;
+                    try {
+                        if (channel.size() >= MAX_SEGMENT_SIZE) startSegment(endEvents);
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                }
+                if (error != null) failure = error;
+                flushed.signalAll();
+                if (error != null) return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // holds the lock; the writer thread is idle or is the caller
+    private void startSegment(long firstEvent) throws IOException {
+        if (firstEvent == segmentStart) return;
+        FileChannel next = FileChannel.open(segmentPath(directory, firstEvent),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segment.close();
+        segment = next;
+        segmentStart = firstEvent;
+    }
+
+    /**
+     * Writes a snapshot of the app and deletes the journal segments it covers. Registrations and
+     * orders wait while the state is copied, but not while it is written out.
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            byte[] state = app.snapshotState(this);
+            Path temp = directory.resolve(SNAPSHOT + ".tmp");
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap(state);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(true);
+            }
+            Files.move(temp, directory.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            for (long start : segmentStarts(directory)) {
+                if (start < snapshotEvents) Files.deleteIfExists(segmentPath(directory, start));
+            }
+        }
+    }
+
+    // called by the app under its write lock, so no event can be appended meanwhile
+    byte[] encodeSnapshot(Collection<DeliveryPerson> couriers, Collection<Restaurant> restaurants, Collection<User> users) throws IOException {
+        long covered;
+        int entityIds;
+        lock.lock();
+        try {
+            while (durable < appended && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (failure != null) throw failure;
+            startSegment(events);
+            covered = events;
+            entityIds = nextEntityId;
+        } finally {
+            lock.unlock();
+        }
+        snapshotEvents = covered;
+
+        ByteSink out = new ByteSink(1 << 16);
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(covered);
+        out.writeVarint(entityIds);
+        // entities go in map order, so the restored maps iterate and break ties the same way
+        out.writeVarint(couriers.size());
+        for (DeliveryPerson courier : couriers) {
+            out.writeVarint(courier.getJournalId());
+            out.writeString(courier.getId());
+            out.writeString(courier.getName());
+            out.writeLong(courier.getPosition());
+            out.writeInt(Float.floatToRawIntBits(courier.getZarabotka()));
+            out.writeVarint(courier.getDeliveries());
+        }
+        out.writeVarint(restaurants.size());
+        for (Restaurant restaurant : restaurants) {
+            out.writeVarint(restaurant.getJournalId());
+            out.writeString(restaurant.getId());
+            out.writeString(restaurant.getName());
+            out.writeLong(restaurant.getPosition());
+            out.writeInt(Float.floatToRawIntBits(restaurant.getZarabotka()));
+            out.writeVarint(restaurant.getDeliveries());
+        }
+        out.writeVarint(users.size());
+        for (User user : users) {
+            out.writeVarint(user.getJournalId());
+            out.writeString(user.getId());
+            out.writeString(user.getName());
+            out.writeVarint(user.getTotalOrders());
+            out.writeInt(Float.floatToRawIntBits(user.getTotalSpent()));
+            out.writeVarint(user.getAddresses().size());
+            for (Address address : user.getAddresses()) {
+                out.writeVarint(address.getJournalId());
+                out.writeString(address.getAddressName());
+                out.writeLong(address.getPosition());
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out.bytes(), 0, out.size());
+        out.writeInt((int) crc.getValue());
+        return Arrays.copyOf(out.bytes(), out.size());
+    }
+
+    /**
+     * Stops journaling the app, waits for every appended event to reach the disk and stops the
+     * snapshot thread. An error from the writer or from a periodic snapshot is thrown here.
+     */
+    @Override
+    public void close() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdown();
+            try {
+                snapshotter.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        app.attachJournal(null);
+        lock.lock();
+        try {
+            closed = true;
+            hasPending.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            segment.close();
+            if (failure != null) throw failure;
+        } finally {
+            lock.unlock();
+        }
+        if (periodicSnapshots != null && periodicSnapshots.isDone() && !periodicSnapshots.isCancelled()) {
+            try {
+                periodicSnapshots.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+                throw new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static Path segmentPath(Path directory, long firstEvent) {
+        return directory.resolve(String.format("journal-%020d.bin", firstEvent));
+    }
+
+    private static long[] segmentStarts(Path directory) throws IOException {
+        List<Long> starts = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "journal-*.bin")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                starts.add(Long.parseLong(name.substring("journal-".length(), name.length() - ".bin".length())));
+            }
+        }
+        return starts.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    /**
+     * Rebuilds an app from a snapshot and journal segments. Entities are kept by journal id, so an
+     * order costs four array lookups and the same updates orderFood makes.
+     */
+    private static class Replay {
+        final DeliveryApp app;
+        long events;
+        int nextEntityId;
+        private Object[] entities = new Object[1024];
+        private char[] chars = new char[64];
+
+        Replay(DeliveryApp app) {
+            this.app = app;
+        }
+
+        void loadSnapshot(Path path) throws IOException {
+            byte[] bytes = Files.readAllBytes(path);
+            if (bytes.length < 4) throw new IOException(path + " is not a delivery snapshot");
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length - 4);
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            if (in.getInt(bytes.length - 4) != (int) crc.getValue() || in.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException(path + " is not a delivery snapshot");
+            }
+            int version = in.getInt();
+            if (version != SNAPSHOT_VERSION) throw new IOException("unsupported snapshot version " + version);
+            events = in.getLong();
+            nextEntityId = readVarint(in);
+            for (int i = readVarint(in); i > 0; i--) {
+                int journalId = readVarint(in);
+                String id = readString(in), name = readString(in);
+                long position = in.getLong();
+                DeliveryPerson courier = new DeliveryPerson(id, name, Locations.toLocation(position));
+                courier.restore(position, Float.intBitsToFloat(in.getInt()), readVarint(in));
+                courier.setJournalId(journalId);
+                put(journalId, courier);
+                app.putDeliveryPerson(courier);
+            }
+            for (int i = readVarint(in); i > 0; i--) {
+                int journalId = readVarint(in);
+                String id = readString(in), name = readString(in);
+                Restaurant restaurant = new Restaurant(id, name, Locations.toLocation(in.getLong()));
+                restaurant.restore(Float.intBitsToFloat(in.getInt()), readVarint(in));
+                restaurant.setJournalId(journalId);
+                put(journalId, restaurant);
+                app.putRestaurant(restaurant);
+            }
+            for (int i = readVarint(in); i > 0; i--) {
+                int journalId = readVarint(in);
+                String id = readString(in), name = readString(in);
+                User user = new User(id, name);
+                user.restore(readVarint(in), Float.intBitsToFloat(in.getInt()));
+                user.setJournalId(journalId);
+                put(journalId, user);
+                for (int a = readVarint(in); a > 0; a--) {
+                    int addressId = readVarint(in);
+                    Address address = user.addAddress(readString(in), Locations.toLocation(in.getLong()));
+                    address.setJournalId(addressId);
+                    put(addressId, address);
+                }
+                app.putUser(user);
+            }
+        }
+
+        /*
+         * Events before the current position are already in the snapshot, which happens when a
+         * crash came between writing a snapshot and deleting the segments it covers. Only the last
+         * segment may end in a torn frame; it is cut off so appends continue after the good ones.
+         */
+        void replaySegment(Path path, long firstEvent, boolean last) throws IOException {
+            if (firstEvent > events) {
+                throw new IOException("journal is missing events " + events + " to " + (firstEvent - 1));
+            }
+            long event = firstEvent;
+            long good = 0;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size > Integer.MAX_VALUE) throw new IOException(path + " is too large");
+                MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                CRC32 crc = new CRC32();
+                while (good + 8 <= size) {
+                    int length = in.getInt((int) good);
+                    int checksum = in.getInt((int) good + 4);
+                    int from = (int) good + 8;
+                    if (length < 0 || from + (long) length > size) break;
+                    crc.reset();
+                    crc.update(in.slice(from, length));
+                    if ((int) crc.getValue() != checksum) break;
+                    in.position(from);
+                    while (in.position() < from + length) {
+                        apply(in, event++ >= events);
+                    }
+                    if (event > events) events = event;
+                    good = from + length;
+                }
+                if (good < size && !last) throw new IOException(path + " is corrupt at byte " + good);
+            }
+            if (last) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    if (channel.size() > good) {
+                        channel.truncate(good);
+                        channel.force(true);
+                    }
+                }
+            }
+        }
+
+        private void apply(ByteBuffer in, boolean live) throws IOException {
+            byte type = in.get();
+            switch (type) {
+                case REGISTER_DELIVERY_PERSON: {
+                    String id = readString(in), name = readString(in);
+                    long position = in.getLong();
+                    if (!live) return;
+                    DeliveryPerson courier = new DeliveryPerson(id, name, Locations.toLocation(position));
+                    courier.setJournalId(nextEntityId);
+                    put(nextEntityId++, courier);
+                    app.putDeliveryPerson(courier);
+                    return;
+                }
+                case ADD_RESTAURANT: {
+                    String id = readString(in), name = readString(in);
+                    long position = in.getLong();
+                    if (!live) return;
+                    Restaurant restaurant = new Restaurant(id, name, Locations.toLocation(position));
+                    restaurant.setJournalId(nextEntityId);
+                    put(nextEntityId++, restaurant);
+                    app.putRestaurant(restaurant);
+                    return;
+                }
+                case ADD_USER: {
+                    String id = readString(in), name = readString(in);
+                    if (!live) return;
+                    User user = new User(id, name);
+                    user.setJournalId(nextEntityId);
+                    put(nextEntityId++, user);
+                    app.putUser(user);
+                    return;
+                }
+                case ADD_ADDRESS: {
+                    int userId = readVarint(in);
+                    String name = readString(in);
+                    long position = in.getLong();
+                    if (!live) return;
+                    Address address = entity(userId, User.class).addAddress(name, Locations.toLocation(position));
+                    address.setJournalId(nextEntityId);
+                    put(nextEntityId++, address);
+                    return;
+                }
+                case ORDER_FOOD: {
+                    int user = readVarint(in), address = readVarint(in), restaurant = readVarint(in), courier = readVarint(in);
+                    float cost = Float.intBitsToFloat(in.getInt());
+                    if (!live) return;
+                    app.applyOrder(entity(user, User.class), entity(address, Address.class),
+                            entity(restaurant, Restaurant.class), entity(courier, DeliveryPerson.class), cost);
+                    return;
+                }
+                default:
+                    throw new IOException("unknown journal event " + type);
+            }
+        }
+
+        private void put(int journalId, Object entity) {
+            if (journalId >= entities.length) {
+                entities = Arrays.copyOf(entities, Math.max(entities.length * 2, journalId + 1));
+            }
+            entities[journalId] = entity;
+        }
+
+        private <T> T entity(int journalId, Class<T> type) throws IOException {
+            Object entity = journalId < entities.length ? entities[journalId] : null;
+            if (!type.isInstance(entity)) throw new IOException("journal refers to unknown " + type.getSimpleName() + " " + journalId);
+            return type.cast(entity);
+        }
+
+        private String readString(ByteBuffer in) {
+            int length = readVarint(in);
+            if (length > chars.length) chars = new char[Math.max(length, chars.length * 2)];
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) readVarint(in);
+            }
+            return new String(chars, 0, length);
+        }
+
+        private static int readVarint(ByteBuffer in) {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+        }
+    }
+
+    /**
+     * Growable byte array for events and snapshots. Strings are stored as their UTF-16 units, one
+     * varint each, so ASCII ids take a byte per character and writing one allocates nothing.
+     */
+    private static class ByteSink {
+        private byte[] bytes;
+        private int size;
+
+        ByteSink(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        void writeByte(int value) {
+            if (size == bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte(value);
+        }
+
+        void writeInt(int value) {
+            writeByte(value >>> 24);
+            writeByte(value >>> 16);
+            writeByte(value >>> 8);
+            writeByte(value);
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeString(String value) {
+            writeVarint(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                writeVarint(value.charAt(i));
+            }
+        }
+    }
+}
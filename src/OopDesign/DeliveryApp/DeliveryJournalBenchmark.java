@@ -0,0 +1,151 @@
+package OopDesign.DeliveryApp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Journals random orders, then times starting the app again from the journal alone and from a
+ * snapshot. Both restarts must print the same reports as the app that placed the orders. Last,
+ * orders that each wait for the disk are placed from a growing number of threads, which shows how
+ * many orders share one fsync.
+ */
+public class DeliveryJournalBenchmark {
+
+    // usage: DeliveryJournalBenchmark [orders] [couriers] [restaurants] [users] [maxThreads]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int couriers = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int restaurants = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int maxThreads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        Path directory = Files.createTempDirectory("delivery-journal");
+        try {
+            DeliveryJournal journal = DeliveryJournal.open(directory, "Journal", false, 0);
+            populate(journal.getApp(), couriers, restaurants, users);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long start = System.nanoTime();
+            for (int i = 0; i < orders; i++) {
+                journal.getApp().orderFood("U" + random.nextInt(users), "home", "R" + random.nextInt(restaurants), 100 + random.nextInt(900));
+            }
+            journal.sync();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long events = journal.getEventCount();
+            String reports = reports(journal.getApp());
+            journal.close();
+            System.out.printf("%d events, %.1f MB journal%n", events, directorySize(directory) / 1e6);
+            System.out.printf("%-24s %10s %14s%n", "phase", "ms", "events/s");
+            System.out.printf("%-24s %10.0f %14.0f%n", "journal orders", seconds * 1e3, orders / seconds);
+
+            // the first restarts warm up the replay code
+            for (int i = 0; i < 3; i++) {
+                DeliveryJournal.open(directory, "Journal", false, 0).close();
+            }
+            start = System.nanoTime();
+            journal = DeliveryJournal.open(directory, "Journal", false, 0);
+            seconds = (System.nanoTime() - start) / 1e9;
+            check(reports, journal.getApp(), "replay");
+            System.out.printf("%-24s %10.0f %14.0f%n", "replay journal", seconds * 1e3, events / seconds);
+
+            start = System.nanoTime();
+            journal.snapshot();
+            System.out.printf("%-24s %10.0f%n", "snapshot", (System.nanoTime() - start) / 1e6);
+            journal.close();
+            start = System.nanoTime();
+            journal = DeliveryJournal.open(directory, "Journal", false, 0);
+            seconds = (System.nanoTime() - start) / 1e9;
+            check(reports, journal.getApp(), "snapshot");
+            System.out.printf("%-24s %10.0f %14.0f%n", "load snapshot", seconds * 1e3, events / seconds);
+            journal.close();
+        } finally {
+            delete(directory);
+        }
+
+        System.out.printf("%8s %12s %14s %14s%n", "threads", "orders", "orders/s", "orders/fsync");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            directory = Files.createTempDirectory("delivery-journal");
+            try (DeliveryJournal journal = DeliveryJournal.open(directory, "Journal", true, 0)) {
+                populate(journal.getApp(), couriers, restaurants, users);
+                long frames = journal.getFrameCount();
+                long placed = run(journal.getApp(), threads, restaurants, users, 1_000_000_000L);
+                frames = journal.getFrameCount() - frames;
+                System.out.printf("%8d %12d %14.0f %14.1f%n", threads, placed, (double) placed, (double) placed / frames);
+            } finally {
+                delete(directory);
+            }
+        }
+    }
+
+    private static void populate(DeliveryApp app, int couriers, int restaurants, int users) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < couriers; i++) {
+            app.registerDeliveryPerson("D" + i, "Courier" + i, LocationCreator.create(random.nextInt(10_000), random.nextInt(10_000)));
+        }
+        for (int i = 0; i < restaurants; i++) {
+            app.addRestaurant("R" + i, "Restaurant" + i, LocationCreator.create(random.nextInt(10_000), random.nextInt(10_000)));
+        }
+        for (int i = 0; i < users; i++) {
+            app.addUser("U" + i, "User" + i);
+            app.addAddress("U" + i, "home", LocationCreator.create(random.nextInt(10_000), random.nextInt(10_000)));
+        }
+    }
+
+    private static long run(DeliveryApp app, int threads, int restaurants, int users, long nanos) throws InterruptedException {
+        LongAdder orders = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long deadline = System.nanoTime() + nanos;
+                while (System.nanoTime() < deadline) {
+                    app.orderFood("U" + random.nextInt(users), "home", "R" + random.nextInt(restaurants), 100 + random.nextInt(900));
+                    orders.increment();
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return orders.sum();
+    }
+
+    private static String reports(DeliveryApp app) {
+        return List.of(app.topUsers(Integer.MAX_VALUE), app.topRestaurants(Integer.MAX_VALUE),
+                app.topDeliveryPeople(Integer.MAX_VALUE)).toString();
+    }
+
+    private static void check(String expected, DeliveryApp app, String phase) {
+        if (!expected.equals(reports(app))) {
+            throw new IllegalStateException("reports after " + phase + " differ from the journaled app");
+        }
+    }
+
+    private static long directorySize(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package OopDesign.DeliveryApp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Places random orders from a growing number of threads and reports orders per second. After
+ * each run the couriers' deliveries must add up to the orders placed, which fails if a courier
+ * was ever assigned to two orders at once, and the app's metrics give the orderFood and courier
+ * search latencies. Batches of growing size are then timed through orderFoodBatch.
+ */
+public class DeliveryLoadHarness {
+
+    // usage: DeliveryLoadHarness [couriers] [restaurants] [users] [seconds] [maxThreads]
+    public static void main(String[] args) throws InterruptedException {
+        int couriers = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int restaurants = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int users = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        double seconds = args.length > 3 ? Double.parseDouble(args[3]) : 2;
+        int maxThreads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%d couriers, %d restaurants, %d users%n", couriers, restaurants, users);
+        // warmup
+        run(populate(couriers, restaurants, users), maxThreads, restaurants, users, (long) (seconds * 1e9));
+        System.out.printf("%8s %12s %14s %8s %10s %10s %10s %10s%n", "threads", "orders", "orders/s", "speedup",
+                "p50 ns", "p99 ns", "p99.9 ns", "search p99");
+        double baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            DeliveryApp app = populate(couriers, restaurants, users);
+            long orders = run(app, threads, restaurants, users, (long) (seconds * 1e9));
+            long deliveries = 0;
+            for (DeliveryPerson courier : app.getDeliveryPersons()) {
+                deliveries += courier.getDeliveries();
+            }
+            if (deliveries != orders) {
+                throw new IllegalStateException(orders + " orders placed but " + deliveries + " deliveries recorded");
+            }
+            double throughput = orders / seconds;
+            if (threads == 1) baseline = throughput;
+            DeliveryMetrics.Snapshot metrics = app.getMetrics().snapshot();
+            LatencyHistogram.Snapshot latency = metrics.getOrderLatency();
+            System.out.printf("%8d %12d %14.0f %7.2fx %10d %10d %10d %10d%n", threads, orders, throughput, throughput / baseline,
+                    latency.percentile(50), latency.percentile(99), latency.percentile(99.9), metrics.getSelectionLatency().percentile(99));
+        }
+
+        System.out.printf("%8s %12s %14s %12s%n", "batch", "ms", "orders/s", "avg pickup");
+        for (int size = 100; size <= couriers * 2; size *= 10) {
+            DeliveryApp app = populate(couriers, restaurants, users);
+            List<FoodOrder> batch = new ArrayList<>(size);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < size; i++) {
+                batch.add(new FoodOrder("U" + random.nextInt(users), "home", "R" + random.nextInt(restaurants), 100 + random.nextInt(900)));
+            }
+            long start = System.nanoTime();
+            long pickup = app.orderFoodBatch(batch);
+            double millis = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%8d %12.1f %14.0f %12.1f%n", size, millis, size / millis * 1e3, (double) pickup / size);
+        }
+    }
+
+    static DeliveryApp populate(int couriers, int restaurants, int users) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        DeliveryApp app = new DeliveryApp("Load");
+        for (int i = 0; i < couriers; i++) {
+            app.registerDeliveryPerson("D" + i, "Courier" + i, LocationCreator.create(random.nextInt(10_000), random.nextInt(10_000)));
+        }
+        for (int i = 0; i < restaurants; i++) {
+            app.addRestaurant("R" + i, "Restaurant" + i, LocationCreator.create(random.nextInt(10_000), random.nextInt(10_000)));
+        }
+        for (int i = 0; i < users; i++) {
+            app.addUser("U" + i, "User" + i);
+            app.addAddress("U" + i, "home", LocationCreator.create(random.nextInt(10_000), random.nextInt(10_000)));
+        }
+        return app;
+    }
+
+    private static long run(DeliveryApp app, int threads, int restaurants, int users, long nanos) throws InterruptedException {
+        LongAdder orders = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long deadline = System.nanoTime() + nanos;
+                while (System.nanoTime() < deadline) {
+                    app.orderFood("U" + random.nextInt(users), "home", "R" + random.nextInt(restaurants), 100 + random.nextInt(900));
+                    orders.increment();
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return orders.sum();
+    }
+}
@@ -0,0 +1,137 @@
+package OopDesign.DeliveryApp;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instruments the order path of one DeliveryApp: how long orderFood and the courier search inside
+ * it take, how many orders were placed, turned away or had their courier taken by another thread,
+ * and how many orders each restaurant and courier has handled. Writers only bump counters, so
+ * recording never blocks; snapshot copies them while orders keep running.
+ */
+class DeliveryMetrics {
+    private final long startNanos = System.nanoTime();
+    private final LatencyHistogram orderLatency = new LatencyHistogram();
+    private final LatencyHistogram selectionLatency = new LatencyHistogram();
+    private final LongAdder rejectedOrders = new LongAdder();
+    private final LongAdder claimConflicts = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> restaurantOrders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> courierOrders = new ConcurrentHashMap<>();
+
+    void recordOrder(long nanos) {
+        orderLatency.record(nanos);
+    }
+
+    void recordSelection(long nanos) {
+        selectionLatency.record(nanos);
+    }
+
+    void orderRejected() {
+        rejectedOrders.increment();
+    }
+
+    // a courier found nearest was claimed by another order before this one could take it
+    void claimConflict() {
+        claimConflicts.increment();
+    }
+
+    void orderPlaced(String restaurantId, String courierId) {
+        count(restaurantOrders, restaurantId);
+        count(courierOrders, courierId);
+    }
+
+    private static void count(ConcurrentHashMap<String, LongAdder> counters, String id) {
+        // get first, since computeIfAbsent locks its bin even when the key is there
+        LongAdder counter = counters.get(id);
+        if (counter == null) counter = counters.computeIfAbsent(id, key -> new LongAdder());
+        counter.increment();
+    }
+
+    /**
+     * Copies every counter. Orders finishing during the copy may show up in some counters and not
+     * yet in others, but each histogram is consistent with itself.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(System.nanoTime() - startNanos, orderLatency.snapshot(), selectionLatency.snapshot(),
+                rejectedOrders.sum(), claimConflicts.sum(), sums(restaurantOrders), sums(courierOrders));
+    }
+
+    private static Map<String, Long> sums(ConcurrentHashMap<String, LongAdder> counters) {
+        Map<String, Long> sums = new HashMap<>();
+        counters.forEach((id, counter) -> sums.put(id, counter.sum()));
+        return Collections.unmodifiableMap(sums);
+    }
+
+    public static class Snapshot {
+        private final long elapsedNanos;
+        private final LatencyHistogram.Snapshot orderLatency;
+        private final LatencyHistogram.Snapshot selectionLatency;
+        private final long rejectedOrders;
+        private final long claimConflicts;
+        private final Map<String, Long> restaurantOrders;
+        private final Map<String, Long> courierOrders;
+
+        Snapshot(long elapsedNanos, LatencyHistogram.Snapshot orderLatency, LatencyHistogram.Snapshot selectionLatency,
+                 long rejectedOrders, long claimConflicts, Map<String, Long> restaurantOrders, Map<String, Long> courierOrders) {
+            this.elapsedNanos = elapsedNanos;
+            this.orderLatency = orderLatency;
+            this.selectionLatency = selectionLatency;
+            this.rejectedOrders = rejectedOrders;
+            this.claimConflicts = claimConflicts;
+            this.restaurantOrders = restaurantOrders;
+            this.courierOrders = courierOrders;
+        }
+
+        // since the app was created
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        // every orderFood call, including the ones turned away
+        public LatencyHistogram.Snapshot getOrderLatency() {
+            return orderLatency;
+        }
+
+        public LatencyHistogram.Snapshot getSelectionLatency() {
+            return selectionLatency;
+        }
+
+        public long getRejectedOrders() {
+            return rejectedOrders;
+        }
+
+        public long getClaimConflicts() {
+            return claimConflicts;
+        }
+
+        // orders placed through orderFood and orderFoodBatch, by restaurant id
+        public Map<String, Long> getRestaurantOrders() {
+            return restaurantOrders;
+        }
+
+        public Map<String, Long> getCourierOrders() {
+            return courierOrders;
+        }
+
+        public long getPlacedOrders() {
+            long placed = 0;
+            for (long orders : restaurantOrders.values()) {
+                placed += orders;
+            }
+            return placed;
+        }
+
+        public double ordersPerSecond() {
+            return getPlacedOrders() / (elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("orders %d (%.0f/s), rejected %d, claim conflicts %d%norderFood %s%ncourier search %s",
+                    getPlacedOrders(), ordersPerSecond(), rejectedOrders, claimConflicts, orderLatency, selectionLatency);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package OopDesign.DeliveryApp;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class DeliveryPerson implements Ranked{
+    private String id;
+    private String name;
+    private volatile long position;
+    private volatile float zarabotka;
+    private volatile int deliveries;
+    private int rank;
+    private int boardIndex;
+    private int gridSlot = -1;
+    private int journalId;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    public DeliveryPerson(String id, String name, Location location) {
+        this.id = id;
+        this.name = name;
+        this.position = Locations.pack(location);
+        this.deliveries = 0;
+        this.zarabotka = 0;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Location getLocation() {
+        return Locations.toLocation(position);
+    }
+
+    public long getPosition() {
+        return position;
+    }
+    public void addDelivery(){
+        deliveries++;
+    }
+
+    public int getDeliveries() {
+        return deliveries;
+    }
+
+    public void setLocation(Location location) {
+        this.position = Locations.pack(location);
+    }
+    public void addOrder(Location restaurant, Location user) {
+        addOrder(Locations.pack(restaurant), Locations.pack(user));
+    }
+    public void addOrder(long restaurant, long user) {
+        zarabotka += 90 + (Locations.distance(restaurant, user) /10)*10;
+        addDelivery();
+        position = user;
+    }
+
+    public float getZarabotka() {
+        return zarabotka;
+    }
+
+    /**
+     * Position of this courier when iterating the app's courier map, the final tie-break when
+     * picking a courier.
+     */
+    @Override
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    @Override
+    public int getBoardIndex() {
+        return boardIndex;
+    }
+
+    @Override
+    public void setBoardIndex(int boardIndex) {
+        this.boardIndex = boardIndex;
+    }
+
+    public int getGridSlot() {
+        return gridSlot;
+    }
+
+    public void setGridSlot(int gridSlot) {
+        this.gridSlot = gridSlot;
+    }
+
+    public int getJournalId() {
+        return journalId;
+    }
+
+    public void setJournalId(int journalId) {
+        this.journalId = journalId;
+    }
+
+    // puts back the state saved in a journal snapshot, before the courier joins the grid
+    void restore(long position, float zarabotka, int deliveries) {
+        this.position = position;
+        this.zarabotka = zarabotka;
+        this.deliveries = deliveries;
+    }
+
+    /**
+     * Reserves this courier for one order. Only the thread holding the claim may call addOrder,
+     * which keeps the courier's counters and location consistent without further locking.
+     */
+    public boolean tryClaim() {
+        return claimed.compareAndSet(false, true);
+    }
+
+    public boolean isClaimed() {
+        return claimed.get();
+    }
+
+    public void release() {
+        claimed.set(false);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ID: %s Name: %s Total deliveries: %s Total delivery fee: %.2f Average delivery fee: %.2f", id, name, deliveries, zarabotka,getAverageZarabotka());
+    }
+
+    public float getAverageZarabotka() {
+        if(deliveries == 0) return 0;
+        return zarabotka/deliveries;
+    }
+}
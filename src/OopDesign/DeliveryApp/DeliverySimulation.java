@@ -0,0 +1,566 @@
+package OopDesign.DeliveryApp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Replays scheduled orders against couriers that take time to travel, where DeliveryApp moves a
+ * courier to the user the moment an order is placed. Time advances in ticks of tickSeconds.
+ * Orders placed during a tick queue up and, at its end, are handed out in the order they were
+ * placed to the nearest free courier, by the rules of CourierGrid.nearest. A courier then rides to
+ * the restaurant and on to the user at its own speed in metres per second, along a Manhattan
+ * route, and is busy until it arrives. Orders wait in the queue while every courier is busy.
+ * <p>
+ * Each tick moves every busy courier, split into chunks across the pool's threads. Chunks only
+ * touch their own couriers, and arrivals are applied in courier order afterwards, so the result
+ * does not depend on the number of threads. Fees, orders and totals are booked with the same
+ * entity methods as DeliveryApp when the courier arrives at the user.
+ * <p>
+ * The hand-out can be split into zonesPerSide x zonesPerSide zones over the box around every
+ * courier, restaurant and ordered address, each with its own grid of free couriers. The zones
+ * file their arriving couriers and hand out their restaurants' orders in parallel, each order to
+ * the nearest courier still free in its zone after the orders before it, as ZonedDeliveryApp
+ * does. Orders whose zone has no free courier then take the nearest one in any zone, in the order
+ * they were placed, on the calling thread. A courier just across a border may be nearer, so with
+ * more than one zone the choice can differ; with one zone every order goes to the nearest free
+ * courier, and the hand-out is sequential. The report gives the time spent in the parallel parts
+ * apart from the rest.
+ */
+class DeliverySimulation {
+    private static final int CHUNK = 4096;
+
+    private final int tickSeconds;
+    private final int parallelism;
+    private final int zonesPerSide;
+
+    private DeliveryPerson[] couriers = new DeliveryPerson[16];
+    private double[] speeds = new double[16];
+    private int courierCount;
+    private final Map<String, Integer> courierIndex = new HashMap<>();
+    private final Map<String, Restaurant> restaurants = new HashMap<>();
+    private final Map<String, User> users = new HashMap<>();
+
+    private long[] orderKeys = new long[16];
+    private User[] orderUsers = new User[16];
+    private Address[] orderAddresses = new Address[16];
+    private Restaurant[] orderRestaurants = new Restaurant[16];
+    private float[] orderCosts = new float[16];
+    private int orderCount;
+    private int rejectedOrders;
+
+    // per courier while running; leg is 0 when free, 1 on the way to the restaurant, 2 to the user
+    private int[] legs;
+    private double[] legLeft;
+    private int[] courierOrders;
+    private double[] arrivals;
+    private int[] active;
+    private int[] finished;
+    private int[] activeInChunk;
+    private int[] finishedInChunk;
+
+    // per zone while running; a zone's orders and arrivals of the tick are at its offsets
+    private CourierGrid[] zoneGrids;
+    private long zoneMinX, zoneMinY, zoneWidth, zoneHeight;
+    private int[] orderZones;
+    private int[] assigned;
+    private int[] zoneOrders;
+    private int[] zoneOrderStarts;
+    private int[] zoneArrivals;
+    private int[] zoneArrivalStarts;
+
+    /**
+     * Runs the ticks' courier moves on parallelism threads; 1 runs them on the caller's thread.
+     * Orders are handed out in one zone.
+     */
+    public DeliverySimulation(int tickSeconds, int parallelism) {
+        this(tickSeconds, parallelism, 1);
+    }
+
+    /**
+     * Also hands out the orders of zonesPerSide x zonesPerSide zones on the parallelism threads.
+     */
+    public DeliverySimulation(int tickSeconds, int parallelism, int zonesPerSide) {
+        if (tickSeconds < 1 || parallelism < 1) throw new IllegalArgumentException("Ticks and threads must be positive");
+        if (zonesPerSide < 1) throw new IllegalArgumentException("At least one zone is needed");
+        this.tickSeconds = tickSeconds;
+        this.parallelism = parallelism;
+        this.zonesPerSide = zonesPerSide;
+    }
+
+    public void registerDeliveryPerson(String id, String name, Location currentLocation, double metresPerSecond) {
+        if (!(metresPerSecond > 0)) throw new IllegalArgumentException("Speed must be positive");
+        Integer index = courierIndex.get(id);
+        if (index == null) {
+            if (courierCount == couriers.length) {
+                couriers = Arrays.copyOf(couriers, courierCount * 2);
+                speeds = Arrays.copyOf(speeds, courierCount * 2);
+            }
+            index = courierCount++;
+            courierIndex.put(id, index);
+        }
+        DeliveryPerson courier = new DeliveryPerson(id, name, currentLocation);
+        courier.setRank(index);
+        couriers[index] = courier;
+        speeds[index] = metresPerSecond;
+    }
+
+    public void addRestaurant(String id, String name, Location location) {
+        Restaurant restaurant = new Restaurant(id, name, location);
+        restaurant.setRank(restaurants.size());
+        restaurants.put(id, restaurant);
+    }
+
+    public void addUser(String id, String name) {
+        User user = new User(id, name);
+        user.setRank(users.size());
+        users.put(id, user);
+    }
+
+    public void addAddress(String id, String addressName, Location location) {
+        if (!users.containsKey(id)) return;
+        users.get(id).addAddress(addressName, location);
+    }
+
+    /**
+     * Schedules an order placed the given number of seconds into the simulation. Orders for an
+     * unknown user or restaurant are ignored, as in DeliveryApp.
+     */
+    public void scheduleOrder(int second, String userId, String userAddressName, String restaurantId, float cost) {
+        if (second < 0) throw new IllegalArgumentException("Orders cannot be placed before the start");
+        if (!users.containsKey(userId) || !restaurants.containsKey(restaurantId)) {
+            rejectedOrders++;
+            return;
+        }
+        User user = users.get(userId);
+        Address address = user.getAddress(userAddressName);
+        if (orderCount == orderKeys.length) {
+            int capacity = orderCount * 2;
+            orderKeys = Arrays.copyOf(orderKeys, capacity);
+            orderUsers = Arrays.copyOf(orderUsers, capacity);
+            orderAddresses = Arrays.copyOf(orderAddresses, capacity);
+            orderRestaurants = Arrays.copyOf(orderRestaurants, capacity);
+            orderCosts = Arrays.copyOf(orderCosts, capacity);
+        }
+        // sorting the keys puts orders in time order, ties in the order they were scheduled
+        orderKeys[orderCount] = (long) second << 32 | orderCount;
+        orderUsers[orderCount] = user;
+        orderAddresses[orderCount] = address;
+        orderRestaurants[orderCount] = restaurants.get(restaurantId);
+        orderCosts[orderCount] = cost;
+        orderCount++;
+    }
+
+    /**
+     * Runs until every scheduled order is delivered. A simulation runs once.
+     */
+    public Report run() {
+        if (legs != null) throw new IllegalStateException("The simulation has already run");
+        // as DeliveryApp.orderFood with no courier registered
+        if (orderCount > 0 && courierCount == 0) throw new NoSuchElementException("No value present");
+        long started = System.nanoTime();
+        legs = new int[courierCount];
+        legLeft = new double[courierCount];
+        courierOrders = new int[courierCount];
+        arrivals = new double[courierCount];
+        active = new int[courierCount];
+        finished = new int[courierCount];
+        activeInChunk = new int[(courierCount + CHUNK - 1) / CHUNK];
+        finishedInChunk = new int[activeInChunk.length];
+        splitIntoZones();
+        int zones = zoneGrids.length;
+        for (int c = 0; c < courierCount; c++) {
+            zoneGrids[zoneOf(couriers[c].getPosition())].add(couriers[c]);
+        }
+
+        long[] schedule = Arrays.copyOf(orderKeys, orderCount);
+        Arrays.sort(schedule);
+        int[] pending = new int[orderCount];
+        int[] arrived = new int[courierCount];
+        LatencyHistogram waits = new LatencyHistogram();
+        LatencyHistogram deliveryTimes = new LatencyHistogram();
+        ForkJoinPool pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        int activeCount = 0;
+        int placed = 0;
+        int pendingCount = 0;
+        int maxQueue = 0;
+        double busySeconds = 0;
+        long tick = 0;
+        long moveNanos = 0;
+        long handOutNanos = 0;
+        try {
+            while (placed < orderCount || pendingCount > 0 || activeCount > 0) {
+                long end = (tick + 1) * tickSeconds;
+                int chunks = (activeCount + CHUNK - 1) / CHUNK;
+                long moveStarted = System.nanoTime();
+                activeCount = advance(chunks, activeCount, end, pool);
+                moveNanos += System.nanoTime() - moveStarted;
+                busySeconds += (double) activeCount * tickSeconds;
+                int arrivedCount = 0;
+                for (int chunk = 0; chunk < chunks; chunk++) {
+                    for (int i = 0; i < finishedInChunk[chunk]; i++) {
+                        int c = finished[chunk * CHUNK + i];
+                        int order = courierOrders[c];
+                        User user = orderUsers[order];
+                        Restaurant restaurant = orderRestaurants[order];
+                        user.addOrder(orderCosts[order]);
+                        restaurant.addOrder(orderCosts[order]);
+                        couriers[c].addOrder(restaurant.getPosition(), orderAddresses[order].getPosition());
+                        arrived[arrivedCount++] = c;
+                        legs[c] = 0;
+                        deliveryTimes.record(Math.round(arrivals[c] - (orderKeys[order] >>> 32)));
+                        busySeconds += arrivals[c] - (end - tickSeconds);
+                    }
+                }
+
+                while (placed < orderCount && (schedule[placed] >>> 32) < end) {
+                    pending[pendingCount++] = (int) schedule[placed++];
+                }
+                maxQueue = Math.max(maxQueue, pendingCount);
+                long handOutStarted = System.nanoTime();
+                handOut(pending, pendingCount, arrived, arrivedCount, pool);
+                handOutNanos += System.nanoTime() - handOutStarted;
+
+                // orders whose zone had no free courier look in the others, in the order they were placed
+                int waiting = 0;
+                boolean anyFree = zones > 1;
+                for (int i = 0; i < pendingCount; i++) {
+                    int order = pending[i];
+                    int c = assigned[order];
+                    if (c < 0 && anyFree) {
+                        c = claimNearestAnywhere(orderRestaurants[order].getPosition());
+                        anyFree = c >= 0;
+                    }
+                    if (c < 0) {
+                        pending[waiting++] = order;
+                        continue;
+                    }
+                    legs[c] = 1;
+                    legLeft[c] = Locations.distance(couriers[c].getPosition(), orderRestaurants[order].getPosition());
+                    courierOrders[c] = order;
+                    active[activeCount++] = c;
+                    waits.record(end - (orderKeys[order] >>> 32));
+                }
+                pendingCount = waiting;
+                tick++;
+            }
+        } finally {
+            if (pool != null) pool.shutdown();
+        }
+        long seconds = tick * tickSeconds;
+        return new Report(orderCount, rejectedOrders, tick, seconds, maxQueue,
+                courierCount == 0 ? 0 : busySeconds / ((double) courierCount * seconds),
+                waits.snapshot(), deliveryTimes.snapshot(), System.nanoTime() - started, moveNanos, handOutNanos);
+    }
+
+    // zones over the box around every position a courier can take, outer zones reaching past it
+    private void splitIntoZones() {
+        long minX = Long.MAX_VALUE, maxX = Long.MIN_VALUE, minY = Long.MAX_VALUE, maxY = Long.MIN_VALUE;
+        for (int i = 0; i < courierCount + orderCount * 2; i++) {
+            long position;
+            if (i < courierCount) {
+                position = couriers[i].getPosition();
+            } else if (i < courierCount + orderCount) {
+                position = orderRestaurants[i - courierCount].getPosition();
+            } else if (orderAddresses[i - courierCount - orderCount] != null) {
+                position = orderAddresses[i - courierCount - orderCount].getPosition();
+            } else {
+                continue;
+            }
+            minX = Math.min(minX, Locations.x(position));
+            maxX = Math.max(maxX, Locations.x(position));
+            minY = Math.min(minY, Locations.y(position));
+            maxY = Math.max(maxY, Locations.y(position));
+        }
+        zoneMinX = minX;
+        zoneMinY = minY;
+        // rounded up, so the last zone ends at or past the box
+        zoneWidth = Math.max(1, (maxX - minX + zonesPerSide) / zonesPerSide);
+        zoneHeight = Math.max(1, (maxY - minY + zonesPerSide) / zonesPerSide);
+        int zones = zonesPerSide * zonesPerSide;
+        zoneGrids = new CourierGrid[zones];
+        for (int zone = 0; zone < zones; zone++) {
+            zoneGrids[zone] = new CourierGrid();
+        }
+        orderZones = new int[orderCount];
+        for (int order = 0; order < orderCount; order++) {
+            orderZones[order] = zoneOf(orderRestaurants[order].getPosition());
+        }
+        assigned = new int[orderCount];
+        zoneOrders = new int[orderCount];
+        zoneOrderStarts = new int[zones + 1];
+        zoneArrivals = new int[courierCount];
+        zoneArrivalStarts = new int[zones + 1];
+    }
+
+    private int zoneOf(long position) {
+        long column = Math.floorDiv(Locations.x(position) - zoneMinX, zoneWidth);
+        long row = Math.floorDiv(Locations.y(position) - zoneMinY, zoneHeight);
+        column = Math.max(0, Math.min(zonesPerSide - 1, column));
+        row = Math.max(0, Math.min(zonesPerSide - 1, row));
+        return (int) row * zonesPerSide + (int) column;
+    }
+
+    // the Manhattan distance from a position to the closest point of a zone
+    private long zoneDistance(int zone, long position) {
+        int column = zone % zonesPerSide, row = zone / zonesPerSide;
+        long fromX = column == 0 ? Long.MIN_VALUE : zoneMinX + column * zoneWidth;
+        long toX = column == zonesPerSide - 1 ? Long.MAX_VALUE : zoneMinX + (column + 1) * zoneWidth - 1;
+        long fromY = row == 0 ? Long.MIN_VALUE : zoneMinY + row * zoneHeight;
+        long toY = row == zonesPerSide - 1 ? Long.MAX_VALUE : zoneMinY + (row + 1) * zoneHeight - 1;
+        long x = Locations.x(position), y = Locations.y(position);
+        long dx = x < fromX ? fromX - x : x > toX ? x - toX : 0;
+        long dy = y < fromY ? fromY - y : y > toY ? y - toY : 0;
+        return dx + dy;
+    }
+
+    /*
+     * Sorts the tick's pending orders and arrived couriers by zone, keeping their order within a
+     * zone, and lets every zone file its couriers and hand out its orders. Zones touch only their
+     * own grid and their own orders' entries in assigned, so they can run on any threads.
+     */
+    private void handOut(int[] pending, int pendingCount, int[] arrived, int arrivedCount, ForkJoinPool pool) {
+        int zones = zoneGrids.length;
+        Arrays.fill(zoneOrderStarts, 0);
+        Arrays.fill(zoneArrivalStarts, 0);
+        for (int i = 0; i < pendingCount; i++) {
+            zoneOrderStarts[orderZones[pending[i]]]++;
+        }
+        for (int i = 0; i < arrivedCount; i++) {
+            zoneArrivalStarts[zoneOf(couriers[arrived[i]].getPosition())]++;
+        }
+        for (int zone = 1; zone <= zones; zone++) {
+            zoneOrderStarts[zone] += zoneOrderStarts[zone - 1];
+            zoneArrivalStarts[zone] += zoneArrivalStarts[zone - 1];
+        }
+        // each zone is filled from its end down to its start, so walking backwards keeps the order
+        for (int i = pendingCount - 1; i >= 0; i--) {
+            zoneOrders[--zoneOrderStarts[orderZones[pending[i]]]] = pending[i];
+        }
+        for (int i = arrivedCount - 1; i >= 0; i--) {
+            zoneArrivals[--zoneArrivalStarts[zoneOf(couriers[arrived[i]].getPosition())]] = arrived[i];
+        }
+        if (pool == null || zones < 2) {
+            for (int zone = 0; zone < zones; zone++) {
+                handOutInZone(zone);
+            }
+        } else {
+            pool.submit(() -> IntStream.range(0, zones).parallel().forEach(this::handOutInZone)).join();
+        }
+    }
+
+    private void handOutInZone(int zone) {
+        CourierGrid grid = zoneGrids[zone];
+        for (int i = zoneArrivalStarts[zone]; i < zoneArrivalStarts[zone + 1]; i++) {
+            grid.add(couriers[zoneArrivals[i]]);
+        }
+        for (int i = zoneOrderStarts[zone]; i < zoneOrderStarts[zone + 1]; i++) {
+            int order = zoneOrders[i];
+            DeliveryPerson courier = grid.nearest(orderRestaurants[order].getPosition());
+            if (courier != null) grid.remove(courier);
+            assigned[order] = courier == null ? -1 : courier.getRank();
+        }
+    }
+
+    // the nearest free courier in any zone, by the rules of CourierGrid.nearest, taken from its grid; -1 when all are busy
+    private int claimNearestAnywhere(long target) {
+        int zone = zoneOf(target);
+        int column = zone % zonesPerSide, row = zone / zonesPerSide;
+        DeliveryPerson best = null;
+        int bestZone = -1;
+        int bestDistance = 0;
+        // zones in square rings around the target's zone, as CourierGrid visits its cells
+        for (int ring = 0; ring < zonesPerSide; ring++) {
+            // zones in this ring are more than ring - 1 zones away
+            if (best != null && bestDistance <= (ring - 1) * Math.min(zoneWidth, zoneHeight)) break;
+            for (int y = Math.max(row - ring, 0); y <= Math.min(row + ring, zonesPerSide - 1); y++) {
+                boolean edge = y == row - ring || y == row + ring;
+                for (int x = Math.max(column - ring, 0); x <= Math.min(column + ring, zonesPerSide - 1); x++) {
+                    if (!edge && x != column - ring && x != column + ring) continue;
+                    int candidateZone = y * zonesPerSide + x;
+                    // a zone as far as the best courier may still hold one that wins the tie
+                    if (best != null && zoneDistance(candidateZone, target) > bestDistance) continue;
+                    DeliveryPerson courier = zoneGrids[candidateZone].nearest(target);
+                    if (courier == null) continue;
+                    int distance = Locations.distance(target, courier.getPosition());
+                    if (best == null || distance < bestDistance || distance == bestDistance
+                            && (courier.getDeliveries() < best.getDeliveries()
+                            || courier.getDeliveries() == best.getDeliveries() && courier.getRank() < best.getRank())) {
+                        best = courier;
+                        bestZone = candidateZone;
+                        bestDistance = distance;
+                    }
+                }
+            }
+        }
+        if (best == null) return -1;
+        zoneGrids[bestZone].remove(best);
+        return best.getRank();
+    }
+
+    // moves the busy couriers through one tick and returns how many are still busy
+    private int advance(int chunks, int activeCount, long end, ForkJoinPool pool) {
+        if (pool == null || chunks < 2) {
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                advanceChunk(chunk, activeCount, end);
+            }
+        } else {
+            pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> advanceChunk(chunk, activeCount, end))).join();
+        }
+        // close the gaps the finished couriers left in each chunk
+        int kept = 0;
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            System.arraycopy(active, chunk * CHUNK, active, kept, activeInChunk[chunk]);
+            kept += activeInChunk[chunk];
+        }
+        return kept;
+    }
+
+    private void advanceChunk(int chunk, int activeCount, long end) {
+        int from = chunk * CHUNK;
+        int to = Math.min(activeCount, from + CHUNK);
+        int kept = from;
+        int done = 0;
+        for (int i = from; i < to; i++) {
+            int c = active[i];
+            double budget = speeds[c] * tickSeconds;
+            while (true) {
+                if (budget < legLeft[c]) {
+                    legLeft[c] -= budget;
+                    active[kept++] = c;
+                    break;
+                }
+                budget -= legLeft[c];
+                if (legs[c] == 1) {
+                    int order = courierOrders[c];
+                    legs[c] = 2;
+                    legLeft[c] = Locations.distance(orderRestaurants[order].getPosition(), orderAddresses[order].getPosition());
+                } else {
+                    // the part of the tick it did not need
+                    arrivals[c] = end - budget / speeds[c];
+                    finished[from + done++] = c;
+                    break;
+                }
+            }
+        }
+        activeInChunk[chunk] = kept - from;
+        finishedInChunk[chunk] = done;
+    }
+
+    public List<DeliveryPerson> topDeliveryPeople(int n) {
+        Leaderboard<DeliveryPerson> board = new Leaderboard<>(DeliveryPerson::getZarabotka);
+        board.rebuild(Arrays.asList(couriers).subList(0, courierCount));
+        return board.top(n);
+    }
+
+    public List<Restaurant> topRestaurants(int n) {
+        Leaderboard<Restaurant> board = new Leaderboard<>(Restaurant::getAverageZarabotka);
+        board.rebuild(restaurants.values());
+        return board.top(n);
+    }
+
+    public List<User> topUsers(int n) {
+        Leaderboard<User> board = new Leaderboard<>(User::getTotalSpent);
+        board.rebuild(users.values());
+        return board.top(n);
+    }
+
+    /**
+     * What a run measured. Waits run from placing an order to handing it to a courier, delivery
+     * times on to the courier reaching the user, both in seconds.
+     */
+    public static class Report {
+        private final int orders;
+        private final int rejectedOrders;
+        private final long ticks;
+        private final long simulatedSeconds;
+        private final int maxQueue;
+        private final double utilization;
+        private final LatencyHistogram.Snapshot waits;
+        private final LatencyHistogram.Snapshot deliveryTimes;
+        private final long runNanos;
+        private final long moveNanos;
+        private final long handOutNanos;
+
+        Report(int orders, int rejectedOrders, long ticks, long simulatedSeconds, int maxQueue, double utilization,
+               LatencyHistogram.Snapshot waits, LatencyHistogram.Snapshot deliveryTimes, long runNanos, long moveNanos,
+               long handOutNanos) {
+            this.orders = orders;
+            this.rejectedOrders = rejectedOrders;
+            this.ticks = ticks;
+            this.simulatedSeconds = simulatedSeconds;
+            this.maxQueue = maxQueue;
+            this.utilization = utilization;
+            this.waits = waits;
+            this.deliveryTimes = deliveryTimes;
+            this.runNanos = runNanos;
+            this.moveNanos = moveNanos;
+            this.handOutNanos = handOutNanos;
+        }
+
+        public int getOrders() {
+            return orders;
+        }
+
+        public int getRejectedOrders() {
+            return rejectedOrders;
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+
+        public long getSimulatedSeconds() {
+            return simulatedSeconds;
+        }
+
+        public int getMaxQueue() {
+            return maxQueue;
+        }
+
+        // the share of courier time spent on orders
+        public double getUtilization() {
+            return utilization;
+        }
+
+        public LatencyHistogram.Snapshot getWaits() {
+            return waits;
+        }
+
+        public LatencyHistogram.Snapshot getDeliveryTimes() {
+            return deliveryTimes;
+        }
+
+        public long getRunNanos() {
+            return runNanos;
+        }
+
+        // the part of getRunNanos spent moving couriers, which runs in parallel
+        public long getMoveNanos() {
+            return moveNanos;
+        }
+
+        // the part of getRunNanos spent in the zones, which runs in parallel with more than one
+        public long getHandOutNanos() {
+            return handOutNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d orders (%d rejected) over %d ticks, %.1f h simulated, max queue %d, utilization %.1f%%%n"
+                            + "wait s     %s%ndelivery s %s",
+                    orders, rejectedOrders, ticks, simulatedSeconds / 3600.0, maxQueue, utilization * 100,
+                    seconds(waits), seconds(deliveryTimes));
+        }
+
+        private static String seconds(LatencyHistogram.Snapshot histogram) {
+            return String.format("mean %.0f, p50 %d, p90 %d, p99 %d, p99.9 %d, max %d", histogram.getMean(),
+                    histogram.percentile(50), histogram.percentile(90), histogram.percentile(99),
+                    histogram.percentile(99.9), histogram.getMax());
+        }
+    }
+}
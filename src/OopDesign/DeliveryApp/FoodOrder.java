@@ -0,0 +1,31 @@
+package OopDesign.DeliveryApp;
+
+class FoodOrder {
+    private final String userId;
+    private final String userAddressName;
+    private final String restaurantId;
+    private final float cost;
+
+    public FoodOrder(String userId, String userAddressName, String restaurantId, float cost) {
+        this.userId = userId;
+        this.userAddressName = userAddressName;
+        this.restaurantId = restaurantId;
+        this.cost = cost;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUserAddressName() {
+        return userAddressName;
+    }
+
+    public String getRestaurantId() {
+        return restaurantId;
+    }
+
+    public float getCost() {
+        return cost;
+    }
+}
@@ -0,0 +1,109 @@
+package OopDesign.DeliveryApp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in buckets that grow with the value: each power of two is split into
+ * SUB_BUCKETS equal buckets, so a percentile is off by at most 1 / SUB_BUCKETS of its value over
+ * the whole range of a long. Recording is one atomic increment on the bucket plus two on the
+ * totals, with no lock.
+ */
+class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucket(nanos));
+        total.add(nanos);
+        // the max only moves while the histogram is young, so the compare rarely leads to a write
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+
+    // values below SUB_BUCKETS get a bucket each; above, the top SUB_BITS + 1 bits pick the bucket
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long lowestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    }
+
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        return lowestValue(bucket) + (1L << (bucket / SUB_BUCKETS - 1)) - 1;
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, total.sum(), max.get());
+    }
+
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long total, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) total / count;
+        }
+
+        /**
+         * The smallest recorded value that at least the given percentage of values are at or
+         * below, rounded up to the end of its bucket. 0 when nothing was recorded.
+         */
+        public long percentile(double percent) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                // the max was read after the buckets, so it may belong to a value not counted yet
+                if (seen >= rank) return Math.min(highestValue(i), Math.max(max, lowestValue(i)));
+            }
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count %d, mean %.0f ns, p50 %d, p90 %d, p99 %d, p99.9 %d, max %d ns",
+                    count, getMean(), percentile(50), percentile(90), percentile(99), percentile(99.9), max);
+        }
+    }
+}
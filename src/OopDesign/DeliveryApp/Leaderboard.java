@@ -0,0 +1,107 @@
+package OopDesign.DeliveryApp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Entities kept in descending order of a float key, ties in ascending rank, which is the order a
+ * stable sort of the app's map values by the reversed key gives. The board records each entity's
+ * key when it is updated and only moves that entity past the neighbours it now overtakes, so an
+ * order costs as much as the places it moves and reading the top n costs O(n).
+ */
+class Leaderboard<T extends Ranked> {
+
+    interface FloatKey<T> {
+        float of(T item);
+    }
+
+    private final FloatKey<T> key;
+    private Object[] items = new Object[0];
+    private float[] keys = new float[0];
+
+    public Leaderboard(FloatKey<T> key) {
+        this.key = key;
+    }
+
+    public synchronized void rebuild(Collection<T> all) {
+        items = all.toArray();
+        keys = new float[items.length];
+        Integer[] order = new Integer[items.length];
+        for (int i = 0; i < items.length; i++) {
+            keys[i] = key.of(item(i));
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> precedes(a, b) ? -1 : precedes(b, a) ? 1 : 0);
+        Object[] sortedItems = new Object[items.length];
+        float[] sortedKeys = new float[items.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedItems[i] = items[order[i]];
+            sortedKeys[i] = keys[order[i]];
+            ((Ranked) sortedItems[i]).setBoardIndex(i);
+        }
+        items = sortedItems;
+        keys = sortedKeys;
+    }
+
+    /**
+     * Re-reads the entity's key and moves it to its place.
+     */
+    public synchronized void update(T item) {
+        int from = item.getBoardIndex();
+        float itemKey = key.of(item);
+        int to = from;
+        if (from > 0 && precedes(itemKey, item, from - 1)) {
+            // everything before it is in order, so search for the first entity it overtakes
+            int low = 0, high = from - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (precedes(itemKey, item, mid)) high = mid;
+                else low = mid + 1;
+            }
+            to = low;
+            System.arraycopy(items, to, items, to + 1, from - to);
+            System.arraycopy(keys, to, keys, to + 1, from - to);
+        } else if (from < items.length - 1 && !precedes(itemKey, item, from + 1)) {
+            int low = from + 1, high = items.length - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (precedes(itemKey, item, mid)) high = mid - 1;
+                else low = mid;
+            }
+            to = low;
+            System.arraycopy(items, from + 1, items, from, to - from);
+            System.arraycopy(keys, from + 1, keys, from, to - from);
+        }
+        items[to] = item;
+        keys[to] = itemKey;
+        for (int i = Math.min(from, to); i <= Math.max(from, to); i++) {
+            item(i).setBoardIndex(i);
+        }
+    }
+
+    public synchronized List<T> top(int n) {
+        List<T> top = new ArrayList<>(Math.min(n, items.length));
+        for (int i = 0; i < items.length && i < n; i++) {
+            top.add(item(i));
+        }
+        return top;
+    }
+
+    private boolean precedes(int a, int b) {
+        return precedes(keys[a], item(a), b);
+    }
+
+    // whether an entity with this key goes before the one at index b
+    private boolean precedes(float itemKey, T item, int b) {
+        int byKey = Float.compare(keys[b], itemKey);
+        if (byKey != 0) return byKey < 0;
+        return item.getRank() < item(b).getRank();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T item(int i) {
+        return (T) items[i];
+    }
+}
@@ -0,0 +1,13 @@
+package OopDesign.DeliveryApp;
+
+interface Location {
+    int getX();
+
+    int getY();
+
+    default int distance(Location other) {
+        int xDiff = Math.abs(getX() - other.getX());
+        int yDiff = Math.abs(getY() - other.getY());
+        return xDiff + yDiff;
+    }
+}
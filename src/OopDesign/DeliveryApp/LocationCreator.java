@@ -0,0 +1,18 @@
+package OopDesign.DeliveryApp;
+
+class LocationCreator {
+    public static Location create(int x, int y) {
+
+        return new Location() {
+            @Override
+            public int getX() {
+                return x;
+            }
+
+            @Override
+            public int getY() {
+                return y;
+            }
+        };
+    }
+}
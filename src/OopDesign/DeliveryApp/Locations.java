@@ -0,0 +1,34 @@
+package OopDesign.DeliveryApp;
+
+/**
+ * Coordinates packed into one long, x in the high half and y in the low half. The app keeps
+ * positions in this form so placing an order allocates nothing and measures distance without
+ * calling through the Location interface.
+ */
+class Locations {
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public static long pack(Location location) {
+        return pack(location.getX(), location.getY());
+    }
+
+    public static int x(long position) {
+        return (int) (position >> 32);
+    }
+
+    public static int y(long position) {
+        return (int) position;
+    }
+
+    public static int distance(long a, long b) {
+        int xDiff = Math.abs(x(a) - x(b));
+        int yDiff = Math.abs(y(a) - y(b));
+        return xDiff + yDiff;
+    }
+
+    public static Location toLocation(long position) {
+        return LocationCreator.create(x(position), y(position));
+    }
+}
@@ -0,0 +1,13 @@
+package OopDesign.DeliveryApp;
+
+/**
+ * An entity kept on a Leaderboard. The rank is its position when iterating the app's map, which
+ * breaks ties the way sorting the map's values used to.
+ */
+interface Ranked {
+    int getRank();
+
+    int getBoardIndex();
+
+    void setBoardIndex(int boardIndex);
+}
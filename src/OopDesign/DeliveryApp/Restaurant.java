@@ -0,0 +1,80 @@
+package OopDesign.DeliveryApp;
+
+import java.util.concurrent.atomic.LongAdder;
+
+class Restaurant implements Ranked{
+    private String id;
+    private String name;
+    private long position;
+    private final AtomicFloat zarabotka;
+    private final LongAdder deliveries;
+    private int rank;
+    private int boardIndex;
+    private int journalId;
+
+    public Restaurant(String id, String name, Location location) {
+        this.id = id;
+        this.name = name;
+        this.position = Locations.pack(location);
+        zarabotka = new AtomicFloat();
+        deliveries = new LongAdder();
+    }
+
+    public String getId() {
+        return id;
+    }
+    public String getName() {
+        return name;
+    }
+    public Location getLocation() {
+        return Locations.toLocation(position);
+    }
+    public long getPosition() {
+        return position;
+    }
+    public void addOrder(float z){
+        deliveries.increment();
+        zarabotka.add(z);
+    }
+    public int getDeliveries() {
+        return deliveries.intValue();
+    }
+    @Override
+    public int getRank() {
+        return rank;
+    }
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+    @Override
+    public int getBoardIndex() {
+        return boardIndex;
+    }
+    @Override
+    public void setBoardIndex(int boardIndex) {
+        this.boardIndex = boardIndex;
+    }
+    public float getZarabotka() {
+        return zarabotka.get();
+    }
+    public int getJournalId() {
+        return journalId;
+    }
+    public void setJournalId(int journalId) {
+        this.journalId = journalId;
+    }
+    void restore(float zarabotka, int deliveries) {
+        this.zarabotka.set(zarabotka);
+        this.deliveries.reset();
+        this.deliveries.add(deliveries);
+    }
+    public float getAverageZarabotka() {
+        int deliveries = getDeliveries();
+        if(deliveries == 0) return 0;
+        return zarabotka.get()/deliveries;
+    }
+    @Override
+    public String toString() {
+        return String.format("ID: %s Name: %s Total orders: %s Total amount earned: %.2f Average amount earned: %.2f", id, name, getDeliveries(), zarabotka.get(), getAverageZarabotka());
+    }
+}
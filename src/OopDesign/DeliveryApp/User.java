@@ -0,0 +1,95 @@
+package OopDesign.DeliveryApp;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+class User implements Ranked{
+    private String id;
+    private String name;
+    private final LongAdder totalOrders;
+    private final AtomicFloat totalSpent;
+    private Map<String, Address> addresses;
+    private int rank;
+    private int boardIndex;
+    private int journalId;
+
+    public User(String id, String name) {
+        this.id = id;
+        this.name = name;
+        totalOrders=new LongAdder();
+        totalSpent=new AtomicFloat();
+        this.addresses = new HashMap<>();
+    }
+    public String getId() {
+        return id;
+    }
+    public String getName() {
+        return name;
+    }
+    public Address addAddress(String addressName, Location location) {
+        Address address = new Address(addressName, location);
+        addresses.put(addressName, address);
+        return address;
+    }
+    public Collection<Address> getAddresses() {
+        return addresses.values();
+    }
+    public void addOrder(float cost){
+        totalOrders.increment();
+        totalSpent.add(cost);
+    }
+    public Address getAddress(String addressName){
+        if (!addresses.containsKey(addressName)) throw new IllegalArgumentException("Address not found");
+        return addresses.get(addressName);
+    }
+
+    @Override
+    public String toString() {
+        int totalOrders = this.totalOrders.intValue();
+        float totalSpent = this.totalSpent.get();
+        return String.format("ID: %s Name: %s Total orders: %s Total amount spent: %.2f Average amount spent: %.2f", id, name, totalOrders, totalSpent, totalOrders!=0 ? totalSpent/totalOrders : 0);
+    }
+
+    public float getTotalSpent() {
+        return totalSpent.get();
+    }
+
+    public int getTotalOrders() {
+        return totalOrders.intValue();
+    }
+
+    public int getJournalId() {
+        return journalId;
+    }
+
+    public void setJournalId(int journalId) {
+        this.journalId = journalId;
+    }
+
+    void restore(int totalOrders, float totalSpent) {
+        this.totalOrders.reset();
+        this.totalOrders.add(totalOrders);
+        this.totalSpent.set(totalSpent);
+    }
+
+    @Override
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    @Override
+    public int getBoardIndex() {
+        return boardIndex;
+    }
+
+    @Override
+    public void setBoardIndex(int boardIndex) {
+        this.boardIndex = boardIndex;
+    }
+}
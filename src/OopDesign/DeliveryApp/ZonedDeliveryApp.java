@@ -0,0 +1,467 @@
+package OopDesign.DeliveryApp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A DeliveryApp split into a columns x rows grid of zones over the plane. Each zone owns the
+ * couriers standing in it and runs everything that touches them one task at a time, so no
+ * courier, grid or map of a zone is ever locked. The zones share a pool of one thread per core:
+ * a zone with work queued runs a batch of its tasks on a pool thread and then makes way for the
+ * next zone, so more zones than cores cost no extra threads or context switches. The outer zones
+ * reach to infinity, so every point has a zone.
+ * <p>
+ * An order starts in the zone of its restaurant and goes to that zone's nearest free courier, by
+ * the rules of CourierGrid.nearest, there and then. A courier just across a border may be nearer,
+ * so with more than one zone the choice can differ from DeliveryApp's; with one zone it is the
+ * same. Only when the zone has no free courier does the order's future visit the other zones,
+ * nearest first, skipping those that cannot beat the courier found so far. The best courier so
+ * far stays claimed, so no other order can take or move it, and the zone holding it at the end
+ * delivers the order. A courier whose delivery ends in another zone is handed to that zone, and
+ * the order completes once the new zone owns it.
+ * <p>
+ * Each order is one CompletableFuture, completed by whichever zone finishes the order; the zones
+ * pass the order between them as plain tasks on their executors, so a hop costs one queued task.
+ * <p>
+ * Registrations return once applied. Reports read the entities directly, so they are exact once
+ * every order future has completed. Ties in the reports and between couriers go to the entity
+ * registered first.
+ */
+class ZonedDeliveryApp implements AutoCloseable {
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+    private static final long RETRY_MILLIS = 1;
+    // tasks a zone runs before giving its pool thread to another zone
+    private static final int ZONE_BATCH = 256;
+
+    private final String name;
+    private final int minX, minY;
+    private final long zoneWidth, zoneHeight;
+    private final int columns, rows;
+    private final Zone[] zones;
+    private final ForkJoinPool pool;
+    private final ConcurrentHashMap<String, DeliveryPerson> deliveryPersons = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Restaurant> restaurants = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
+    private final AtomicInteger ranks = new AtomicInteger();
+    private final DeliveryMetrics metrics = new DeliveryMetrics();
+    private final LongAdder remoteSearches = new LongAdder();
+    private final LongAdder handoffs = new LongAdder();
+
+    /**
+     * Zones split the box from min to max evenly; positions outside it belong to the nearest
+     * outer zone.
+     */
+    public ZonedDeliveryApp(String name, Location min, Location max, int columns, int rows) {
+        if (columns < 1 || rows < 1) throw new IllegalArgumentException("At least one zone is needed");
+        this.name = name;
+        this.minX = min.getX();
+        this.minY = min.getY();
+        this.columns = columns;
+        this.rows = rows;
+        // rounded up, so the last zone ends at or past max
+        this.zoneWidth = Math.max(1, ((long) max.getX() - minX + columns) / columns);
+        this.zoneHeight = Math.max(1, ((long) max.getY() - minY + rows) / rows);
+        int threads = Math.min(columns * rows, Runtime.getRuntime().availableProcessors());
+        AtomicInteger workers = new AtomicInteger();
+        pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName(name + "-zones-" + workers.getAndIncrement());
+            return thread;
+        }, null, true);
+        zones = new Zone[columns * rows];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                zones[row * columns + column] = new Zone(column, row);
+            }
+        }
+    }
+
+    public void registerDeliveryPerson(String id, String name, Location currentLocation) {
+        DeliveryPerson courier = new DeliveryPerson(id, name, currentLocation);
+        courier.setRank(ranks.getAndIncrement());
+        DeliveryPerson replaced = deliveryPersons.put(id, courier);
+        CompletableFuture<Void> retired = DONE;
+        if (replaced != null) {
+            // a courier on its way to another zone is dropped when it arrives instead
+            Zone zone = zoneOf(replaced.getPosition());
+            retired = CompletableFuture.runAsync(() -> zone.retire(replaced), zone.executor);
+        }
+        Zone zone = zoneOf(courier.getPosition());
+        join(CompletableFuture.allOf(retired, CompletableFuture.runAsync(() -> zone.adopt(courier), zone.executor)));
+    }
+
+    public void addRestaurant(String id, String name, Location location) {
+        Restaurant restaurant = new Restaurant(id, name, location);
+        restaurant.setRank(ranks.getAndIncrement());
+        restaurants.put(id, restaurant);
+    }
+
+    public void addUser(String id, String name) {
+        User user = new User(id, name);
+        user.setRank(ranks.getAndIncrement());
+        users.put(id, user);
+    }
+
+    public void addAddress(String id, String addressName, Location location) {
+        User user = users.get(id);
+        if (user == null) return;
+        // orders look addresses up from their callers' threads
+        synchronized (user) {
+            user.addAddress(addressName, location);
+        }
+    }
+
+    public void orderFood(String userId, String userAddressName, String restaurantId, float cost) {
+        join(orderFoodAsync(userId, userAddressName, restaurantId, cost));
+    }
+
+    /**
+     * Places the order without waiting for it. The future completes once the user, restaurant and
+     * courier are updated and the courier is in the zone it ended up in. Orders for an unknown
+     * user or restaurant are ignored, as in DeliveryApp.
+     */
+    public CompletableFuture<Void> orderFoodAsync(String userId, String userAddressName, String restaurantId, float cost) {
+        long start = System.nanoTime();
+        User user = users.get(userId);
+        Restaurant restaurant = restaurants.get(restaurantId);
+        if (user == null || restaurant == null) {
+            metrics.orderRejected();
+            metrics.recordOrder(System.nanoTime() - start);
+            return CompletableFuture.completedFuture(null);
+        }
+        Address address;
+        synchronized (user) {
+            address = user.getAddress(userAddressName);
+        }
+        Order order = new Order(user, address, restaurant, cost, start);
+        Zone home = zoneOf(restaurant.getPosition());
+        home.run(order, () -> home.placeLocally(order));
+        return order.done;
+    }
+
+    private void complete(Order order) {
+        metrics.recordOrder(System.nanoTime() - order.start);
+        order.done.complete(null);
+    }
+
+    /**
+     * Visits every zone that could beat the courier found so far, nearest zone first. A zone with
+     * a better courier claims it and the one found before is released, so the order holds at most
+     * one courier at a time. The release is queued before the delivery, so an order placed after
+     * this one completes finds the courier free again.
+     */
+    private void search(Order order) {
+        remoteSearches.increment();
+        long target = order.restaurant.getPosition();
+        List<Zone> route = new ArrayList<>(Arrays.asList(zones));
+        route.sort(Comparator.comparingLong(zone -> zone.distance(target)));
+        visit(order, route, 0, null);
+    }
+
+    // runs on the executor of the zone visited last, or the caller's for the first visit
+    private void visit(Order order, List<Zone> route, int next, Candidate found) {
+        long target = order.restaurant.getPosition();
+        // zones no nearer than the found courier may still hold one that wins the tie
+        if (next < route.size() && (found == null || route.get(next).distance(target) <= found.distance)) {
+            Zone zone = route.get(next);
+            zone.run(order, () -> visit(order, route, next + 1, zone.offer(target, found)));
+            return;
+        }
+        if (found == null) {
+            if (deliveryPersons.isEmpty()) throw new NoSuchElementException("No value present");
+            // every courier is claimed by another order or between zones; look again shortly
+            metrics.claimConflict();
+            Executor later = CompletableFuture.delayedExecutor(RETRY_MILLIS, TimeUnit.MILLISECONDS);
+            later.execute(() -> {
+                try {
+                    search(order);
+                } catch (RuntimeException e) {
+                    fail(order, e);
+                }
+            });
+            return;
+        }
+        found.zone.run(order, () -> {
+            if (!found.zone.deliverClaimed(found.courier, order)) {
+                metrics.claimConflict();
+                search(order);
+            }
+        });
+    }
+
+    private void fail(Order order, Throwable failure) {
+        metrics.recordOrder(System.nanoTime() - order.start);
+        order.done.completeExceptionally(failure);
+    }
+
+    public List<User> topUsers(int n) {
+        Leaderboard<User> board = new Leaderboard<>(User::getTotalSpent);
+        board.rebuild(users.values());
+        return board.top(n);
+    }
+
+    public List<Restaurant> topRestaurants(int n) {
+        Leaderboard<Restaurant> board = new Leaderboard<>(Restaurant::getAverageZarabotka);
+        board.rebuild(restaurants.values());
+        return board.top(n);
+    }
+
+    public List<DeliveryPerson> topDeliveryPeople(int n) {
+        Leaderboard<DeliveryPerson> board = new Leaderboard<>(DeliveryPerson::getZarabotka);
+        board.rebuild(deliveryPersons.values());
+        return board.top(n);
+    }
+
+    public void printUsers() {
+        topUsers(Integer.MAX_VALUE).forEach(System.out::println);
+    }
+
+    public void printRestaurants() {
+        topRestaurants(Integer.MAX_VALUE).forEach(System.out::println);
+    }
+
+    public void printDeliveryPeople() {
+        topDeliveryPeople(Integer.MAX_VALUE).forEach(System.out::println);
+    }
+
+    public DeliveryMetrics getMetrics() {
+        return metrics;
+    }
+
+    // orders whose restaurant's zone had no free courier
+    public long getRemoteSearches() {
+        return remoteSearches.sum();
+    }
+
+    // couriers that finished a delivery in another zone than they started it in
+    public long getHandoffs() {
+        return handoffs.sum();
+    }
+
+    public int getZoneCount() {
+        return zones.length;
+    }
+
+    @Override
+    public void close() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Zone zoneOf(long position) {
+        long column = Math.floorDiv(Locations.x(position) - (long) minX, zoneWidth);
+        long row = Math.floorDiv(Locations.y(position) - (long) minY, zoneHeight);
+        column = Math.max(0, Math.min(columns - 1, column));
+        row = Math.max(0, Math.min(rows - 1, row));
+        return zones[(int) row * columns + (int) column];
+    }
+
+    private static void join(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    private static class Order {
+        final User user;
+        final Address address;
+        final Restaurant restaurant;
+        final float cost;
+        final long start;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Order(User user, Address address, Restaurant restaurant, float cost, long start) {
+            this.user = user;
+            this.address = address;
+            this.restaurant = restaurant;
+            this.cost = cost;
+            this.start = start;
+        }
+    }
+
+    /**
+     * A courier claimed by its zone for one order. Claimed couriers cannot move, so the distance
+     * and deliveries read when it was claimed stay true until it is released.
+     */
+    private static class Candidate {
+        final Zone zone;
+        final DeliveryPerson courier;
+        final int distance;
+        final int deliveries;
+
+        Candidate(Zone zone, DeliveryPerson courier, long target) {
+            this.zone = zone;
+            this.courier = courier;
+            this.distance = Locations.distance(target, courier.getPosition());
+            this.deliveries = courier.getDeliveries();
+        }
+
+        boolean isBetter(Candidate other) {
+            if (distance != other.distance) return distance < other.distance;
+            if (deliveries != other.deliveries) return deliveries < other.deliveries;
+            return courier.getRank() < other.courier.getRank();
+        }
+
+        void release() {
+            zone.executor.execute(courier::release);
+        }
+    }
+
+    /**
+     * Everything in here runs on the zone's executor.
+     */
+    private class Zone {
+        final Executor executor = this::execute;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        // set while a drain is queued on or running in the pool
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        final Map<String, DeliveryPerson> couriers = new HashMap<>();
+        final CourierGrid grid = new CourierGrid();
+        // inclusive bounds, open towards infinity at the edges of the grid
+        final long fromX, toX, fromY, toY;
+
+        Zone(int column, int row) {
+            fromX = column == 0 ? Long.MIN_VALUE : minX + column * zoneWidth;
+            toX = column == columns - 1 ? Long.MAX_VALUE : minX + (column + 1) * zoneWidth - 1;
+            fromY = row == 0 ? Long.MIN_VALUE : minY + row * zoneHeight;
+            toY = row == rows - 1 ? Long.MAX_VALUE : minY + (row + 1) * zoneHeight - 1;
+        }
+
+        private void execute(Runnable task) {
+            tasks.add(task);
+            if (scheduled.compareAndSet(false, true)) pool.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                for (int i = 0; i < ZONE_BATCH; i++) {
+                    Runnable task = tasks.poll();
+                    if (task == null) {
+                        scheduled.set(false);
+                        // a task added after the poll but before the flag was cleared saw it still set
+                        if (tasks.isEmpty() || !scheduled.compareAndSet(false, true)) return;
+                        continue;
+                    }
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        // one failed task must not stall the zone
+                        Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+                    }
+                }
+                try {
+                    pool.execute(this::drain);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // the app is closing; finish the queued work here
+                }
+            }
+        }
+
+        // runs a step of the order here; a step that throws fails the order
+        void run(Order order, Runnable step) {
+            executor.execute(() -> {
+                try {
+                    step.run();
+                } catch (RuntimeException e) {
+                    fail(order, e);
+                }
+            });
+        }
+
+        // the Manhattan distance from a position to the closest point of this zone
+        long distance(long position) {
+            long x = Locations.x(position), y = Locations.y(position);
+            long dx = x < fromX ? fromX - x : x > toX ? x - toX : 0;
+            long dy = y < fromY ? fromY - y : y > toY ? y - toY : 0;
+            return dx + dy;
+        }
+
+        void placeLocally(Order order) {
+            DeliveryPerson courier = grid.nearest(order.restaurant.getPosition());
+            if (courier == null) {
+                search(order);
+            } else {
+                deliver(courier, order);
+            }
+        }
+
+        // nearest skips claimed couriers, and only this thread claims the zone's couriers
+        Candidate offer(long target, Candidate found) {
+            DeliveryPerson courier = grid.nearest(target);
+            if (courier == null) return found;
+            Candidate candidate = new Candidate(this, courier, target);
+            if (found != null && !candidate.isBetter(found)) return found;
+            courier.tryClaim();
+            if (found != null) found.release();
+            return candidate;
+        }
+
+        // false when the courier was registered again under its id while it was claimed
+        boolean deliverClaimed(DeliveryPerson courier, Order order) {
+            courier.release();
+            if (couriers.get(courier.getId()) != courier) return false;
+            deliver(courier, order);
+            return true;
+        }
+
+        void deliver(DeliveryPerson courier, Order order) {
+            order.user.addOrder(order.cost);
+            order.restaurant.addOrder(order.cost);
+            courier.addOrder(order.restaurant.getPosition(), order.address.getPosition());
+            metrics.orderPlaced(order.restaurant.getId(), courier.getId());
+            Zone next = zoneOf(courier.getPosition());
+            if (next == this) {
+                grid.move(courier);
+                complete(order);
+                return;
+            }
+            couriers.remove(courier.getId());
+            grid.remove(courier);
+            handoffs.increment();
+            next.run(order, () -> {
+                next.adopt(courier);
+                complete(order);
+            });
+        }
+
+        void adopt(DeliveryPerson courier) {
+            // re-registered under the same id while it was on its way
+            if (deliveryPersons.get(courier.getId()) != courier) return;
+            DeliveryPerson replaced = couriers.put(courier.getId(), courier);
+            if (replaced != null) grid.remove(replaced);
+            grid.add(courier);
+        }
+
+        void retire(DeliveryPerson courier) {
+            if (couriers.get(courier.getId()) != courier) return;
+            couriers.remove(courier.getId());
+            grid.remove(courier);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package OopDesign.DeliveryApp;
+
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Places orders where users order from the restaurant nearest to them, so most deliveries start
+ * and end in one zone, and times them on a ZonedDeliveryApp cut into a growing number of zones.
+ * Orders are submitted from one thread with at most one in flight per courier, up to IN_FLIGHT.
+ * A plain DeliveryApp taking the same orders one at a time is the baseline. Each run checks that
+ * every order was delivered.
+ * <p>
+ * Two workloads give the scaling curve over 1x1 .. maxSide x maxSide zones. In "uniform"
+ * restaurants and homes are spread over the whole city, so the more zones, the more couriers end
+ * a delivery in another zone and are handed over. In "neighbourhoods" they sit in clusters kept
+ * clear of every zone border, so orders stay in their zone whatever the split. Orders only search
+ * other zones when their own has no free courier. Zones share one pool thread per core, so on one
+ * core both curves should stay flat. Measured on one core, 200k orders and 4000 couriers, uniform
+ * took 1450 ms at 1x1, 1500 ms at 2x2 and 3x3 and 1690 ms at 4x4 (0.5% to 5.8% remote). With 200
+ * couriers and 100k orders it took 600 ms at 1x1 and 690 ms at every split from 2x2 to 4x4.
+ * Zoning adds throughput only once there is more than one core to run the zones on.
+ */
+public class ZonedDeliveryBenchmark {
+    private static final int CITY = 10_000;
+    private static final int IN_FLIGHT = 4096;
+    private static final int NEIGHBOURHOOD = 150;
+
+    // usage: ZonedDeliveryBenchmark [orders] [couriers] [restaurants] [users] [maxSide]
+    public static void main(String[] args) throws InterruptedException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int couriers = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+        int restaurants = args.length > 2 ? Integer.parseInt(args[2]) : 400;
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 4000;
+        int maxSide = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+
+        System.out.printf("%d orders, %d couriers, %d restaurants, %d users, %d cores%n", orders, couriers, restaurants, users,
+                Runtime.getRuntime().availableProcessors());
+        for (String workload : new String[]{"uniform", "neighbourhoods"}) {
+            System.out.println(workload);
+            run(workload.equals("neighbourhoods"), orders, couriers, restaurants, users, maxSide);
+        }
+    }
+
+    private static void run(boolean clustered, int orders, int couriers, int restaurants, int users, int maxSide)
+            throws InterruptedException {
+        Random random = new Random(42);
+        int[][] courierAt = points(random, couriers);
+        int[][] centres = clustered ? centres(random, Math.max(1, restaurants / 10), maxSide) : null;
+        int[][] restaurantAt = clustered ? near(random, centres, restaurants) : points(random, restaurants);
+        int[][] homeAt = clustered ? near(random, centres, users) : points(random, users);
+        String[] userIds = new String[users];
+        String[] restaurantIds = new String[restaurants];
+        String[] nearestRestaurant = new String[users];
+        for (int r = 0; r < restaurants; r++) {
+            restaurantIds[r] = "R" + r;
+        }
+        for (int u = 0; u < users; u++) {
+            userIds[u] = "U" + u;
+            int best = 0;
+            for (int r = 1; r < restaurants; r++) {
+                if (distance(homeAt[u], restaurantAt[r]) < distance(homeAt[u], restaurantAt[best])) best = r;
+            }
+            nearestRestaurant[u] = restaurantIds[best];
+        }
+        int[] orderUsers = new int[orders];
+        for (int i = 0; i < orders; i++) {
+            orderUsers[i] = random.nextInt(users);
+        }
+
+        System.out.printf("%-12s %10s %14s %8s %10s %10s%n", "app", "ms", "orders/s", "speedup", "remote %", "handoff %");
+        for (int round = 0; round < 2; round++) {
+            boolean report = round == 1;
+            DeliveryApp app = new DeliveryApp("Baseline");
+            for (int i = 0; i < couriers; i++) {
+                app.registerDeliveryPerson("D" + i, "Courier" + i, LocationCreator.create(courierAt[i][0], courierAt[i][1]));
+            }
+            for (int i = 0; i < restaurants; i++) {
+                app.addRestaurant(restaurantIds[i], "Restaurant" + i, LocationCreator.create(restaurantAt[i][0], restaurantAt[i][1]));
+            }
+            for (int i = 0; i < users; i++) {
+                app.addUser(userIds[i], "User" + i);
+                app.addAddress(userIds[i], "home", LocationCreator.create(homeAt[i][0], homeAt[i][1]));
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < orders; i++) {
+                app.orderFood(userIds[orderUsers[i]], "home", nearestRestaurant[orderUsers[i]], 100);
+            }
+            double baseline = orders / ((System.nanoTime() - start) / 1e9);
+            if (report) System.out.printf("%-12s %10.0f %14.0f%n", "DeliveryApp", orders / baseline * 1e3, baseline);
+
+            for (int side = 1; side <= maxSide; side++) {
+                try (ZonedDeliveryApp zoned = new ZonedDeliveryApp("Zoned", LocationCreator.create(0, 0),
+                        LocationCreator.create(CITY, CITY), side, side)) {
+                    for (int i = 0; i < couriers; i++) {
+                        zoned.registerDeliveryPerson("D" + i, "Courier" + i, LocationCreator.create(courierAt[i][0], courierAt[i][1]));
+                    }
+                    for (int i = 0; i < restaurants; i++) {
+                        zoned.addRestaurant(restaurantIds[i], "Restaurant" + i, LocationCreator.create(restaurantAt[i][0], restaurantAt[i][1]));
+                    }
+                    for (int i = 0; i < users; i++) {
+                        zoned.addUser(userIds[i], "User" + i);
+                        zoned.addAddress(userIds[i], "home", LocationCreator.create(homeAt[i][0], homeAt[i][1]));
+                    }
+                    // more orders in flight than couriers only queue up behind claimed couriers
+                    int inFlight = Math.min(IN_FLIGHT, couriers);
+                    Semaphore window = new Semaphore(inFlight);
+                    start = System.nanoTime();
+                    for (int i = 0; i < orders; i++) {
+                        window.acquire();
+                        zoned.orderFoodAsync(userIds[orderUsers[i]], "home", nearestRestaurant[orderUsers[i]], 100)
+                                .whenComplete((ignored, failure) -> window.release());
+                    }
+                    window.acquire(inFlight);
+                    double throughput = orders / ((System.nanoTime() - start) / 1e9);
+                    long deliveries = 0;
+                    for (DeliveryPerson courier : zoned.topDeliveryPeople(Integer.MAX_VALUE)) {
+                        deliveries += courier.getDeliveries();
+                    }
+                    if (deliveries != orders) {
+                        throw new IllegalStateException(orders + " orders placed but " + deliveries + " deliveries recorded");
+                    }
+                    if (report) {
+                        System.out.printf("%-12s %10.0f %14.0f %7.2fx %10.1f %10.1f%n", side + "x" + side + " zones",
+                                orders / throughput * 1e3, throughput, throughput / baseline,
+                                100.0 * zoned.getRemoteSearches() / orders, 100.0 * zoned.getHandoffs() / orders);
+                    }
+                }
+            }
+        }
+    }
+
+    // centres at least NEIGHBOURHOOD away from every border of every split up to maxSide x maxSide
+    private static int[][] centres(Random random, int n, int maxSide) {
+        int[][] centres = new int[n][];
+        for (int i = 0, attempts = 0; i < n; attempts++) {
+            if (attempts == 1_000_000) throw new IllegalArgumentException("No room for neighbourhoods clear of " + maxSide + " zone borders");
+            int[] centre = {random.nextInt(CITY), random.nextInt(CITY)};
+            if (clearOfBorders(centre[0], maxSide) && clearOfBorders(centre[1], maxSide)) centres[i++] = centre;
+        }
+        return centres;
+    }
+
+    private static boolean clearOfBorders(int coordinate, int maxSide) {
+        for (int side = 1; side <= maxSide; side++) {
+            long width = (CITY + side) / side;
+            long offset = coordinate % width;
+            if (offset < 2 * NEIGHBOURHOOD || width - offset < 2 * NEIGHBOURHOOD) return false;
+        }
+        return true;
+    }
+
+    private static int[][] near(Random random, int[][] centres, int n) {
+        int[][] points = new int[n][];
+        for (int i = 0; i < n; i++) {
+            int[] centre = centres[random.nextInt(centres.length)];
+            points[i] = new int[]{centre[0] + random.nextInt(2 * NEIGHBOURHOOD + 1) - NEIGHBOURHOOD,
+                    centre[1] + random.nextInt(2 * NEIGHBOURHOOD + 1) - NEIGHBOURHOOD};
+        }
+        return points;
+    }
+
+    private static int[][] points(Random random, int n) {
+        int[][] points = new int[n][];
+        for (int i = 0; i < n; i++) {
+            points[i] = new int[]{random.nextInt(CITY), random.nextInt(CITY)};
+        }
+        return points;
+    }
+
+    private static int distance(int[] a, int[] b) {
+        return Math.abs(a[0] - b[0]) + Math.abs(a[1] - b[1]);
+    }
+}
@@ -0,0 +1,63 @@
+package OopDesign.FacultyApp;
+
+// keeps the grade sum of its enrollments as grades come in, so the average needs no pass over the
+// students; a student enrolled more than once counts once per enrollment, with the current grade.
+// Each student counts its own enrollments, so nothing here grows with the students.
+// Graduating does not touch these totals: a graduate stays counted with the grades it left with,
+// as it stayed in the course's student list before the totals were kept
+class Course{
+    private int id;
+    private String courseName;
+    private int studentCount;
+    private long gradeSum;
+    // enrollments of students with no grade for this course, whose grade was turned away
+    private int ungraded;
+
+    public Course(int id, String courseName) {
+        this.id = id;
+        this.courseName = courseName;
+    }
+    // synchronized, since students grading in parallel in Faculty.addGrades share their courses
+    public synchronized void addStudent(Student student) {
+        studentCount++;
+        Integer grade = student == null ? null : student.enroll(this);
+        if (grade == null) {
+            ungraded++;
+        } else {
+            gradeSum += grade;
+        }
+    }
+
+    // called by a student enrolled the given number of times whenever its grade for this course is
+    // set, with the grade it replaces
+    synchronized void gradeChanged(int times, Integer previous, int grade) {
+        if (times == 0) return;
+        if (previous == null) {
+            ungraded -= times;
+        } else {
+            gradeSum -= (long) times * previous;
+        }
+        gradeSum += (long) times * grade;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCourseName() {
+        return courseName;
+    }
+    public int getStudentCount() {
+        return studentCount;
+    }
+    // 5 with no students. While an enrollment has no grade, which only happens when the grade was
+    // turned away or the student was unknown, it throws the NullPointerException that summing the
+    // students' grades threw before the totals were kept, so callers see the same failure
+    public float getAverageGrade(){
+        if(studentCount == 0) return 5f;
+        if(ungraded > 0) {
+            throw new NullPointerException(String.format("Course %s has students without a grade", courseName));
+        }
+        return (float) gradeSum / studentCount;
+    }
+}
@@ -0,0 +1,240 @@
+package OopDesign.FacultyApp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+class Faculty {
+    // graduations the default in-memory log keeps before dropping the oldest; its arrays grow to
+    // this only as students graduate
+    static final int DEFAULT_LOG_CAPACITY = 100_000;
+
+    // the ids of the students still studying, which number them; a graduate's number goes to the
+    // next new student
+    private SymbolTable studentIds;
+    private Student[] students;
+    private SymbolTable courseNames;
+    // courses by their number in courseNames, which is the order they were first graded in
+    private List<Course> courseById;
+    private FacultyLog logs;
+    // every student in students, best first; a student's grades only change while it is out of here
+    private TreeSet<Student> ranking;
+    // the size a HashMap of the students would have, which decides the order ties come out in
+    private int capacity;
+    private int arrivals;
+
+    public Faculty() {
+        this(new RingFacultyLog(DEFAULT_LOG_CAPACITY));
+    }
+
+    public Faculty(FacultyLog logs) {
+        studentIds = new SymbolTable();
+        students = new Student[16];
+        courseNames = new SymbolTable();
+        courseById = new ArrayList<>();
+        this.logs = logs;
+        ranking = new TreeSet<>(this::compareRanking);
+        capacity = 16;
+    }
+
+    void addStudent(String id, int yearsOfStudies) {
+        int number = studentIds.intern(id);
+        if (number == students.length) students = Arrays.copyOf(students, number * 2);
+        Student student = new Student(studentIds.get(number), yearsOfStudies, courseById);
+        Student replaced = students[number];
+        students[number] = student;
+        if (replaced != null) {
+            ranking.remove(replaced);
+            student.setArrival(replaced.getArrival());
+        } else {
+            student.setArrival(arrivals++);
+        }
+        if (studentIds.size() > capacity / 4 * 3) {
+            // the table doubled, and with it the ties order
+            capacity *= 2;
+            ranking.clear();
+            for (Student s : students) {
+                if (s != null) ranking.add(s);
+            }
+        } else {
+            ranking.add(student);
+        }
+    }
+
+    // more courses first, then the higher average; ties go in the order a HashMap of the students
+    // would iterate them in, by bucket and then by arrival, as the stable sort over one used to
+    // leave them
+    private int compareRanking(Student a, Student b) {
+        int order = Integer.compare(b.getCoursesPassed(), a.getCoursesPassed());
+        if (order == 0) order = Float.compare(b.getAverageGrade(), a.getAverageGrade());
+        if (order == 0) order = Integer.compare(bucket(a.getId(), capacity), bucket(b.getId(), capacity));
+        if (order == 0) order = Integer.compare(a.getArrival(), b.getArrival());
+        return order;
+    }
+
+    // the bucket of a HashMap with a table of the given size that the key goes in
+    private static int bucket(String key, int capacity) {
+        int hash = key == null ? 0 : key.hashCode();
+        return (hash ^ (hash >>> 16)) & (capacity - 1);
+    }
+
+    private Student student(String id) {
+        int number = studentIds.find(id);
+        return number < 0 ? null : students[number];
+    }
+
+    private Course course(String courseName) {
+        int number = courseNames.intern(courseName);
+        if (number == courseById.size()) {
+            courseById.add(new Course(number, courseNames.get(number)));
+        }
+        return courseById.get(number);
+    }
+
+    void addGradeToStudent(String studentId, int term, String courseName, int grade) throws OperationNotAllowedException {
+        Course course = course(courseName);
+        Student s = student(studentId);
+        course.addStudent(s);
+        ranking.remove(s);
+        try {
+            s.addGrade(course, term, grade);
+        } finally {
+            ranking.add(s);
+        }
+        checkGraduate(s);
+    }
+    void checkGraduate(Student s) {
+        if(!s.checkGraduate()){
+            return;
+        }
+        graduate(s);
+    }
+
+    private void graduate(Student s) {
+        logs.graduated(s.getId(), s.getAverageGrade(), s.getYearsOfStudy());
+        students[studentIds.remove(s.getId())] = null;
+        ranking.remove(s);
+    }
+
+    /**
+     * Adds a batch of grades, each student's rows in parallel with the other students' and in batch
+     * order among themselves. A row gets the checks of addGradeToStudent and is turned away with
+     * the message addGradeToStudent would throw; a row for a student that is not enrolled, or has
+     * graduated earlier in the batch, is turned away without enrolling anyone in its course.
+     * Graduations are logged in the order of the rows that completed them.
+     */
+    GradeBatchResult addGrades(List<GradeRow> rows) {
+        Map<String, List<Integer>> rowsByStudent = new LinkedHashMap<>();
+        int[] rowCourses = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            GradeRow row = rows.get(i);
+            rowCourses[i] = course(row.getCourseName()).getId();
+            rowsByStudent.computeIfAbsent(row.getStudentId(), id -> new ArrayList<>()).add(i);
+        }
+        List<StudentRows> batches = new ArrayList<>(rowsByStudent.size());
+        rowsByStudent.forEach((id, indexes) -> {
+            Student student = student(id);
+            if (student != null) ranking.remove(student);
+            batches.add(new StudentRows(student, indexes));
+        });
+
+        // courses exist and the ranking is out of the way, so each student only touches itself
+        // and the synchronized course totals
+        batches.parallelStream().forEach(batch -> batch.apply(rows, rowCourses, courseById));
+
+        List<GradeBatchResult.RejectedRow> rejected = new ArrayList<>();
+        List<StudentRows> graduated = new ArrayList<>();
+        int applied = 0;
+        for (StudentRows batch : batches) {
+            rejected.addAll(batch.rejected);
+            applied += batch.applied;
+            if (batch.graduatedAt >= 0) {
+                graduated.add(batch);
+            } else if (batch.student != null) {
+                ranking.add(batch.student);
+            }
+        }
+        graduated.sort(Comparator.comparingInt(batch -> batch.graduatedAt));
+        for (StudentRows batch : graduated) {
+            graduate(batch.student);
+        }
+        rejected.sort(Comparator.comparingInt(GradeBatchResult.RejectedRow::getIndex));
+        return new GradeBatchResult(applied, graduated.size(), rejected);
+    }
+
+    // the rows of one student in a batch, and what became of them
+    private static class StudentRows {
+        final Student student;
+        final List<Integer> indexes;
+        final List<GradeBatchResult.RejectedRow> rejected = new ArrayList<>();
+        int applied;
+        int graduatedAt = -1;
+
+        StudentRows(Student student, List<Integer> indexes) {
+            this.student = student;
+            this.indexes = indexes;
+        }
+
+        void apply(List<GradeRow> rows, int[] rowCourses, List<Course> courseById) {
+            for (int index : indexes) {
+                GradeRow row = rows.get(index);
+                if (student == null || graduatedAt >= 0) {
+                    rejected.add(new GradeBatchResult.RejectedRow(index, row, String.format("No student with ID %s", row.getStudentId())));
+                    continue;
+                }
+                Course course = courseById.get(rowCourses[index]);
+                course.addStudent(student);
+                try {
+                    student.addGrade(course, row.getTerm(), row.getGrade());
+                } catch (OperationNotAllowedException e) {
+                    rejected.add(new GradeBatchResult.RejectedRow(index, row, e.getMessage()));
+                    continue;
+                }
+                applied++;
+                if (student.checkGraduate()) graduatedAt = index;
+            }
+        }
+    }
+
+    boolean isEnrolled(String studentId) {
+        return studentIds.find(studentId) >= 0;
+    }
+
+    String getFacultyLogs() {
+        return logs.read();
+    }
+
+    String getDetailedReportForStudent(String id) {
+        return student(id).getReport();
+    }
+
+    void printFirstNStudents(int n) {
+        List<Student> firstN = ranking.stream()
+                .limit(n)
+                .collect(Collectors.toList());
+        firstN.forEach(s -> System.out.printf("Student: %s Courses passed: %d Average grade: %.2f%n", s.getId(), s.getCoursesPassed(), s.getAverageGrade()));
+    }
+
+    // throws the NullPointerException of Course.getAverageGrade, before printing anything, when a
+    // course has an enrollment without a grade
+    void printCourses() {
+        float[] averages = new float[courseById.size()];
+        for (Course course : courseById) {
+            averages[course.getId()] = course.getAverageGrade();
+        }
+        // ties go in the order a HashMap of the course names would iterate them in: by bucket, then
+        // by when the course came, which is the order of courseById
+        int capacity = 16;
+        while (courseById.size() > capacity / 4 * 3) {
+            capacity *= 2;
+        }
+        int tableSize = capacity;
+        courseById.stream().sorted(Comparator.comparingInt(Course::getStudentCount).thenComparingDouble(c -> averages[c.getId()])
+                .thenComparingInt(c -> bucket(c.getCourseName(), tableSize))).forEach(s -> System.out.println(s.getCourseName()+" "+ s.getStudentCount() + " " + averages[s.getId()]));
+    }
+}
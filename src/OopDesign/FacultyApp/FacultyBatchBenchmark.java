@@ -0,0 +1,102 @@
+package OopDesign.FacultyApp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Uploads an end-of-term batch of grades once row by row through addGradeToStudent and once
+ * through addGrades, and checks that both faculties end up printing the same logs, ranking and
+ * course statistics and turned away the same rows. A few rows are for unknown students, for terms
+ * the student cannot have or go past three grades in a term, and three students in four get
+ * enough grades to graduate.
+ */
+public class FacultyBatchBenchmark {
+
+    // usage: FacultyBatchBenchmark [students] [courses]
+    public static void main(String[] args) {
+        int studentCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int courseCount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        Random random = new Random(42);
+        List<GradeRow> rows = new ArrayList<>();
+        List<GradeRow> late = new ArrayList<>();
+        int[] years = new int[studentCount];
+        for (int i = 0; i < studentCount; i++) {
+            years[i] = 3 + random.nextInt(2);
+            // one student in four stops a term short of graduating
+            int terms = years[i] * 2 - (i % 4 == 0 ? 1 : 0);
+            int firstCourse = random.nextInt(courseCount);
+            for (int term = 1; term <= terms; term++) {
+                for (int k = 0; k < 3; k++) {
+                    rows.add(new GradeRow("S" + i, term, "C" + (firstCourse + term * 3 + k) % courseCount, 5 + random.nextInt(6)));
+                }
+            }
+            // a turned away row still enrolls the student, so it names a course the student has a
+            // grade in, and comes after all of them, or the course could no longer be averaged
+            String gradedCourse = "C" + (firstCourse + 3) % courseCount;
+            if (random.nextInt(20) == 0) late.add(new GradeRow("S" + i, 1, gradedCourse, 7));
+            if (random.nextInt(20) == 0) late.add(new GradeRow("S" + i, years[i] * 2 + 1, gradedCourse, 7));
+            if (random.nextInt(100) == 0) late.add(new GradeRow("X" + i, 1, gradedCourse, 7));
+        }
+        Collections.shuffle(rows, random);
+        Collections.shuffle(late, random);
+        rows.addAll(late);
+        System.out.printf("%d rows for %d students, %d courses, %d cores%n", rows.size(), studentCount, courseCount,
+                Runtime.getRuntime().availableProcessors());
+
+        for (int round = 0; round < 3; round++) {
+            Faculty sequential = faculty(years);
+            int rejected = 0;
+            long start = System.nanoTime();
+            for (GradeRow row : rows) {
+                if (!sequential.isEnrolled(row.getStudentId())) {
+                    rejected++;
+                    continue;
+                }
+                try {
+                    sequential.addGradeToStudent(row.getStudentId(), row.getTerm(), row.getCourseName(), row.getGrade());
+                } catch (OperationNotAllowedException e) {
+                    rejected++;
+                }
+            }
+            long sequentialNanos = System.nanoTime() - start;
+
+            Faculty batched = faculty(years);
+            start = System.nanoTime();
+            GradeBatchResult result = batched.addGrades(rows);
+            long batchNanos = System.nanoTime() - start;
+
+            if (result.getRejected().size() != rejected || !print(sequential).equals(print(batched))) {
+                throw new IllegalStateException("the batch ended differently from adding the rows one by one");
+            }
+            System.out.printf("one by one %6.0f ms, addGrades %6.0f ms (%.2fx): %s%n", sequentialNanos / 1e6, batchNanos / 1e6,
+                    (double) sequentialNanos / batchNanos, result);
+        }
+    }
+
+    private static Faculty faculty(int[] years) {
+        Faculty faculty = new Faculty();
+        for (int i = 0; i < years.length; i++) {
+            faculty.addStudent("S" + i, years[i]);
+        }
+        return faculty;
+    }
+
+    private static String print(Faculty faculty) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(printed, true));
+        try {
+            System.out.println(faculty.getFacultyLogs());
+            faculty.printFirstNStudents(100);
+            faculty.printCourses();
+        } finally {
+            System.setOut(out);
+        }
+        return printed.toString();
+    }
+}
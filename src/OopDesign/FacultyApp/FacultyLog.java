@@ -0,0 +1,26 @@
+package OopDesign.FacultyApp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Formatter;
+
+/**
+ * Where a Faculty reports its graduations. A graduation is handed over as its raw values and
+ * only turned into a line of text when the log is read or written out, so graduating a student
+ * costs no formatting or I/O.
+ */
+interface FacultyLog extends Closeable {
+
+    void graduated(String studentId, float averageGrade, int yearsOfStudy);
+
+    // every graduation the log still holds, oldest first, one line each
+    String read();
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    static void appendLine(Formatter out, String studentId, float averageGrade, int yearsOfStudy) {
+        out.format("Student with ID %s graduated with average grade %.2f in %d years\n", studentId, averageGrade, yearsOfStudy);
+    }
+}
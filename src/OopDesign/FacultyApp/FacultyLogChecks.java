@@ -0,0 +1,140 @@
+package OopDesign.FacultyApp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Formatter;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Self-checking runs of the graduation logs, which the tester inputs never fill or rotate. Each
+ * check throws an IllegalStateException on the first wrong answer; a clean run prints "all checks
+ * passed".
+ */
+public class FacultyLogChecks {
+    // "student" in Russian, two bytes a character in UTF-8
+    private static final String CYRILLIC = "\u0441\u0442\u0443\u0434\u0435\u043d\u0442";
+
+    public static void main(String[] args) throws IOException {
+        ringKeepsTheLastGraduations();
+        rotationKeepsFilesUnderTheLimit();
+        loggingAfterCloseThrows();
+        loggingFailsOnceTheWriterFailed();
+        System.out.println("all checks passed");
+    }
+
+    private static void ringKeepsTheLastGraduations() {
+        for (int capacity : new int[]{1, 16, 17, 100}) {
+            RingFacultyLog log = new RingFacultyLog(capacity);
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                log.graduated("s" + i, 5 + i % 6, 1 + i % 4);
+                lines.add(line("s" + i, 5 + i % 6, 1 + i % 4));
+                String expected = String.join("", lines.subList(Math.max(0, lines.size() - capacity), lines.size()));
+                check(log.read().equals(expected), "ring of " + capacity + " after " + (i + 1) + " graduations");
+            }
+            check(log.getGraduations() == 1000, "ring of " + capacity + " counted " + log.getGraduations());
+        }
+    }
+
+    private static void rotationKeepsFilesUnderTheLimit() throws IOException {
+        Path directory = Files.createTempDirectory("faculty-log");
+        try {
+            List<String> lines = new ArrayList<>();
+            try (RotatingFileFacultyLog log = new RotatingFileFacultyLog(directory, 500, 20, 8)) {
+                for (int i = 0; i < 300; i++) {
+                    // an emoji takes four bytes
+                    String id = CYRILLIC + i + CYRILLIC + (i % 3 == 0 ? "\uD83C\uDF93" : "");
+                    log.graduated(id, 7.5f, 4);
+                    lines.add(line(id, 7.5f, 4));
+                }
+                String kept = log.read();
+                String all = String.join("", lines);
+                check(!kept.isEmpty() && all.endsWith(kept) && kept.length() < all.length(), "rotated log does not end with the last graduations");
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                List<Path> kept = files.toList();
+                check(kept.size() == 20, "kept " + kept.size() + " files instead of 20");
+                for (Path file : kept) {
+                    check(Files.size(file) <= 500, file.getFileName() + " holds " + Files.size(file) + " bytes");
+                    check(new String(Files.readAllBytes(file), StandardCharsets.UTF_8).endsWith("\n"), file.getFileName() + " ends mid-line");
+                }
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void loggingAfterCloseThrows() throws IOException {
+        Path directory = Files.createTempDirectory("faculty-log");
+        try {
+            RotatingFileFacultyLog log = new RotatingFileFacultyLog(directory, 500, 2, 8);
+            log.graduated("s1", 8f, 3);
+            log.close();
+            check(log.read().equals(line("s1", 8f, 3)), "closing lost a graduation");
+            try {
+                log.graduated("s2", 8f, 3);
+                check(false, "logged a graduation after close");
+            } catch (IllegalStateException expected) {
+                // closed
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void loggingFailsOnceTheWriterFailed() throws IOException {
+        Path directory = Files.createTempDirectory("faculty-log");
+        // the writer cannot open a directory as its file
+        Files.createDirectory(directory.resolve(RotatingFileFacultyLog.FILE_NAME));
+        try {
+            RotatingFileFacultyLog log = new RotatingFileFacultyLog(directory, 500, 2, 1);
+            Thread graduating = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 1000; i++) {
+                        log.graduated("s" + i, 8f, 3);
+                    }
+                } catch (UncheckedIOException expected) {
+                    // the writer's failure
+                }
+            });
+            graduating.start();
+            graduating.join(10_000);
+            check(!graduating.isAlive(), "logging blocked on a failed writer");
+            try {
+                log.graduated("s", 8f, 3);
+                check(false, "logged a graduation after the writer failed");
+            } catch (UncheckedIOException expected) {
+                // the writer's failure
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static String line(String studentId, float averageGrade, int yearsOfStudy) {
+        StringBuilder sb = new StringBuilder();
+        FacultyLog.appendLine(new Formatter(sb), studentId, averageGrade, yearsOfStudy);
+        return sb.toString();
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new IllegalStateException(message);
+    }
+}
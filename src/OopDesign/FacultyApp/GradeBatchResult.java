@@ -0,0 +1,67 @@
+package OopDesign.FacultyApp;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What Faculty.addGrades did with a batch of rows: how many it applied, how many students
+ * graduated, and every row it turned away with the reason, in row order.
+ */
+class GradeBatchResult {
+    private final int applied;
+    private final int graduated;
+    private final List<RejectedRow> rejected;
+
+    GradeBatchResult(int applied, int graduated, List<RejectedRow> rejected) {
+        this.applied = applied;
+        this.graduated = graduated;
+        this.rejected = Collections.unmodifiableList(rejected);
+    }
+
+    public int getApplied() {
+        return applied;
+    }
+
+    public int getGraduated() {
+        return graduated;
+    }
+
+    public List<RejectedRow> getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("applied %d, graduated %d, rejected %d", applied, graduated, rejected.size());
+    }
+
+    static class RejectedRow {
+        private final int index;
+        private final GradeRow row;
+        private final String reason;
+
+        RejectedRow(int index, GradeRow row, String reason) {
+            this.index = index;
+            this.row = row;
+            this.reason = reason;
+        }
+
+        // position of the row in the batch
+        public int getIndex() {
+            return index;
+        }
+
+        public GradeRow getRow() {
+            return row;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return index + ": " + reason;
+        }
+    }
+}
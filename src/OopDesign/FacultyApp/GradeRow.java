@@ -0,0 +1,32 @@
+package OopDesign.FacultyApp;
+
+// one grade of an upload: what addGradeToStudent takes
+class GradeRow {
+    private final String studentId;
+    private final int term;
+    private final String courseName;
+    private final int grade;
+
+    public GradeRow(String studentId, int term, String courseName, int grade) {
+        this.studentId = studentId;
+        this.term = term;
+        this.courseName = courseName;
+        this.grade = grade;
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public int getTerm() {
+        return term;
+    }
+
+    public String getCourseName() {
+        return courseName;
+    }
+
+    public int getGrade() {
+        return grade;
+    }
+}
@@ -0,0 +1,7 @@
+package OopDesign.FacultyApp;
+
+class OperationNotAllowedException extends Exception {
+    public OperationNotAllowedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,60 @@
+package OopDesign.FacultyApp;
+
+import java.util.Arrays;
+import java.util.Formatter;
+
+/**
+ * Keeps the last graduations in memory, in three arrays used as a ring: once it holds capacity
+ * graduations, each one overwrites the oldest. The arrays start small and double as graduations
+ * come in, so a large capacity only costs memory once it is used. getGraduations tells how many
+ * were logged, so a reader can see how many the log no longer holds.
+ */
+class RingFacultyLog implements FacultyLog {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int capacity;
+    private String[] studentIds;
+    private float[] averageGrades;
+    private int[] yearsOfStudy;
+    private long graduations;
+
+    RingFacultyLog(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        int initial = Math.min(capacity, INITIAL_CAPACITY);
+        studentIds = new String[initial];
+        averageGrades = new float[initial];
+        yearsOfStudy = new int[initial];
+    }
+
+    @Override
+    public synchronized void graduated(String studentId, float averageGrade, int years) {
+        // the arrays only grow before the ring first wraps, so the slots stay in order
+        if (graduations == studentIds.length && studentIds.length < capacity) {
+            int length = (int) Math.min(capacity, studentIds.length * 2L);
+            studentIds = Arrays.copyOf(studentIds, length);
+            averageGrades = Arrays.copyOf(averageGrades, length);
+            yearsOfStudy = Arrays.copyOf(yearsOfStudy, length);
+        }
+        int slot = (int) (graduations++ % studentIds.length);
+        studentIds[slot] = studentId;
+        averageGrades[slot] = averageGrade;
+        yearsOfStudy[slot] = years;
+    }
+
+    @Override
+    public synchronized String read() {
+        StringBuilder sb = new StringBuilder();
+        Formatter out = new Formatter(sb);
+        for (long i = Math.max(0, graduations - studentIds.length); i < graduations; i++) {
+            int slot = (int) (i % studentIds.length);
+            FacultyLog.appendLine(out, studentIds[slot], averageGrades[slot], yearsOfStudy[slot]);
+        }
+        return sb.toString();
+    }
+
+    // graduations logged so far, including the ones overwritten since
+    public synchronized long getGraduations() {
+        return graduations;
+    }
+}
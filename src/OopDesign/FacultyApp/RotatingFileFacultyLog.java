@@ -0,0 +1,247 @@
+package OopDesign.FacultyApp;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes graduations to {@code faculty.log} in a directory from a writer thread. The thread takes
+ * everything queued since its last write, formats it and writes it in one go. When the file grows
+ * past maxFileBytes it becomes {@code faculty.log.1}, the older files move up one number and the
+ * one past maxFiles is deleted. Reading waits for the graduations logged so far to be written and
+ * returns what the kept files hold. Once the writer has failed or the log is closed, logging a
+ * graduation throws instead of queueing it.
+ */
+class RotatingFileFacultyLog implements FacultyLog {
+    static final String FILE_NAME = "faculty.log";
+    // how long a full queue is waited on before checking the writer again
+    private static final long OFFER_MILLIS = 100;
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final BlockingQueue<Graduation> queue;
+    private final Thread writer;
+    private long queued;
+    private long written;
+    private IOException failure;
+    private boolean closed;
+
+    RotatingFileFacultyLog(Path directory, long maxFileBytes, int maxFiles, int maxQueued) throws IOException {
+        if (maxFiles < 1) throw new IllegalArgumentException("maxFiles must be positive: " + maxFiles);
+        this.directory = Files.createDirectories(directory);
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.queue = new LinkedBlockingQueue<>(maxQueued);
+        writer = new Thread(this::writeLoop, "faculty-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Blocks only while maxQueued graduations are waiting for a writer that is still running.
+     *
+     * @throws UncheckedIOException if the writer failed
+     * @throws IllegalStateException if the log is closed or its writer has stopped
+     */
+    @Override
+    public void graduated(String studentId, float averageGrade, int yearsOfStudy) {
+        Graduation graduation = new Graduation(studentId, averageGrade, yearsOfStudy);
+        synchronized (this) {
+            checkWriting();
+            queued++;
+        }
+        try {
+            while (!queue.offer(graduation, OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+                // counted as queued, it is still written if the log closes meanwhile
+                synchronized (this) {
+                    if (failure != null || !writer.isAlive()) {
+                        queued--;
+                        notifyAll();
+                        checkWriting();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (this) {
+                queued--;
+                notifyAll();
+            }
+        }
+    }
+
+    private void checkWriting() {
+        if (failure != null) throw new UncheckedIOException(failure);
+        if (closed) throw new IllegalStateException("log is closed");
+        if (!writer.isAlive()) throw new IllegalStateException("log writer has stopped");
+    }
+
+    @Override
+    public String read() {
+        synchronized (this) {
+            long target = queued;
+            boolean interrupted = false;
+            while (written < target && failure == null && writer.isAlive()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            if (failure != null) throw new UncheckedIOException(failure);
+        }
+        StringBuilder sb = new StringBuilder();
+        try {
+            for (int i = maxFiles - 1; i >= 0; i--) {
+                Path file = path(i);
+                if (Files.exists(file)) sb.append(Files.readString(file, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
+
+    private void writeLoop() {
+        List<Graduation> batch = new ArrayList<>();
+        StringBuilder text = new StringBuilder();
+        Formatter out = new Formatter(text);
+        BufferedWriter file = null;
+        try {
+            file = open();
+            long size = Files.size(path(0));
+            while (true) {
+                Graduation first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    // a graduation counted as queued before close may still be on its way in
+                    synchronized (this) {
+                        if (closed && written == queued) break;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch);
+                for (Graduation graduation : batch) {
+                    int start = text.length();
+                    FacultyLog.appendLine(out, graduation.studentId, graduation.averageGrade, graduation.yearsOfStudy);
+                    long lineBytes = utf8Length(text, start, text.length());
+                    if (size > 0 && size + lineBytes > maxFileBytes) {
+                        file.append(text, 0, start);
+                        text.delete(0, start);
+                        file.close();
+                        rotate();
+                        file = open();
+                        size = 0;
+                    }
+                    size += lineBytes;
+                }
+                file.append(text);
+                file.flush();
+                text.setLength(0);
+                synchronized (this) {
+                    written += batch.size();
+                    notifyAll();
+                }
+                batch.clear();
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                failure = e;
+                notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                notifyAll();
+            }
+            if (file != null) {
+                try {
+                    file.close();
+                } catch (IOException ignored) {
+                    // what was written was already flushed
+                }
+            }
+        }
+    }
+
+    // the bytes the chars take in the file, without encoding them; a surrogate with no partner is
+    // written as the one-byte replacement '?'
+    static long utf8Length(CharSequence text, int from, int to) {
+        long bytes = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    private BufferedWriter open() throws IOException {
+        return Files.newBufferedWriter(path(0), StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private void rotate() throws IOException {
+        Files.deleteIfExists(path(maxFiles - 1));
+        for (int i = maxFiles - 2; i >= 0; i--) {
+            if (Files.exists(path(i))) Files.move(path(i), path(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Path path(int generation) {
+        return directory.resolve(generation == 0 ? FILE_NAME : FILE_NAME + "." + generation);
+    }
+
+    /**
+     * Writes out everything logged so far and stops the writer thread.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (failure != null) throw failure;
+        }
+    }
+
+    private static class Graduation {
+        final String studentId;
+        final float averageGrade;
+        final int yearsOfStudy;
+
+        Graduation(String studentId, float averageGrade, int yearsOfStudy) {
+            this.studentId = studentId;
+            this.averageGrade = averageGrade;
+            this.yearsOfStudy = yearsOfStudy;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package OopDesign.FacultyApp;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// keeps its grades in a few primitive arrays: the terms it has grades in, in the order they came,
+// with the ids of up to three courses each, and every course it is enrolled in with the number of
+// enrollments and the last grade it got, if any
+class Student{
+    private static final int GRADES_PER_TERM = 3;
+    // up to this many terms, a HashMap of them keeps its first 16 buckets as plain lists
+    private static final int SMALL_TERM_MAP = 8;
+
+    private String id;
+    private int yearsOfStudy;
+    private List<Course> courseById;
+    // terms[t] holds termCounts[t] courses, from termCourses[t * GRADES_PER_TERM] on
+    private int[] terms;
+    private byte[] termCounts;
+    private int[] termCourses;
+    private int termCount;
+    private int[] courses;
+    private int[] enrollments;
+    private boolean[] graded;
+    private int[] grades;
+    private int courseCount;
+    private int gradedCount;
+    private long gradeSum;
+    // when the faculty first saw this id, which orders students that rank the same
+    private int arrival;
+
+    public Student(String id, int yearsOfStudy, List<Course> courseById) {
+        this.id = id;
+        this.yearsOfStudy = yearsOfStudy;
+        this.courseById = courseById;
+        int expectedTerms = Math.max(1, Math.min(yearsOfStudy * 2, 8));
+        terms = new int[expectedTerms];
+        termCounts = new byte[expectedTerms];
+        termCourses = new int[expectedTerms * GRADES_PER_TERM];
+        courses = new int[expectedTerms * GRADES_PER_TERM];
+        enrollments = new int[expectedTerms * GRADES_PER_TERM];
+        graded = new boolean[expectedTerms * GRADES_PER_TERM];
+        grades = new int[expectedTerms * GRADES_PER_TERM];
+    }
+    public void addGrade(Course courseName, int term, int grade) throws OperationNotAllowedException {
+        int t = termIndex(term);
+        if(t >= 0 && termCounts[t] >= GRADES_PER_TERM) {
+            throw new OperationNotAllowedException(String.format("Student %s already has 3 grades in term %d", this.id, term));
+        }
+        if(term>yearsOfStudy*2) {
+            throw new OperationNotAllowedException(String.format("Term %d is not possible for student with ID %s", term, this.id));
+        }
+        if(t < 0) {
+            t = addTerm(term);
+        }
+        termCourses[t * GRADES_PER_TERM + termCounts[t]++] = courseName.getId();
+        int c = course(courseName);
+        Integer previous = null;
+        if(graded[c]) {
+            previous = grades[c];
+        } else {
+            graded[c] = true;
+            gradedCount++;
+        }
+        grades[c] = grade;
+        gradeSum += previous == null ? grade : grade - previous;
+        courseName.gradeChanged(enrollments[c], previous, grade);
+    }
+
+    // counts one more enrollment in the course; returns the grade the student has in it, or null
+    Integer enroll(Course course) {
+        int c = course(course);
+        enrollments[c]++;
+        return graded[c] ? grades[c] : null;
+    }
+
+    private int course(Course course) {
+        int c = courseIndex(course.getId());
+        return c < 0 ? addCourse(course.getId()) : c;
+    }
+
+    private int termIndex(int term) {
+        for (int t = 0; t < termCount; t++) {
+            if (terms[t] == term) return t;
+        }
+        return -1;
+    }
+
+    private int addTerm(int term) {
+        if (termCount == terms.length) {
+            terms = Arrays.copyOf(terms, termCount * 2);
+            termCounts = Arrays.copyOf(termCounts, termCount * 2);
+            termCourses = Arrays.copyOf(termCourses, termCount * 2 * GRADES_PER_TERM);
+        }
+        terms[termCount] = term;
+        return termCount++;
+    }
+
+    private int courseIndex(int course) {
+        for (int c = 0; c < courseCount; c++) {
+            if (courses[c] == course) return c;
+        }
+        return -1;
+    }
+
+    private int addCourse(int course) {
+        if (courseCount == courses.length) {
+            courses = Arrays.copyOf(courses, courseCount * 2);
+            enrollments = Arrays.copyOf(enrollments, courseCount * 2);
+            graded = Arrays.copyOf(graded, courseCount * 2);
+            grades = Arrays.copyOf(grades, courseCount * 2);
+        }
+        courses[courseCount] = course;
+        return courseCount++;
+    }
+
+    public boolean checkGraduate(){
+        return gradedCount == yearsOfStudy * 6;
+    }
+
+    public String getReport(){
+        StringBuilder sb = new StringBuilder();
+        sb.append("Student: ").append(this.id).append("\n");
+        // terms come out in the order a HashMap keyed by term iterates them in, which only depends
+        // on the terms and the order they came in
+        if (termCount <= SMALL_TERM_MAP) {
+            // such a map keeps its 16 buckets and iterates them in turn, each in the order it
+            // was filled, so the terms can be visited in that order without building it
+            for (int bucket = 0; bucket < 16; bucket++) {
+                for (int t = 0; t < termCount; t++) {
+                    int hash = Integer.hashCode(terms[t]);
+                    if (((hash ^ (hash >>> 16)) & 15) == bucket) appendTerm(sb, t);
+                }
+            }
+        } else {
+            Map<Integer, Integer> termIndexes = new HashMap<>();
+            for (int t = 0; t < termCount; t++) {
+                termIndexes.put(terms[t], t);
+            }
+            for (int t : termIndexes.values()) {
+                appendTerm(sb, t);
+            }
+        }
+        sb.append("Average grade: ").append(getAverageGrade()).append("\n");
+        sb.append("Courses attended: ");
+        IntStream.range(0, courseCount)
+                .filter(c -> graded[c])
+                .mapToObj(c -> courseById.get(courses[c]))
+                .sorted(Comparator.comparing(Course::getCourseName))
+                .forEach(k -> sb.append(k.getCourseName()).append(","));
+        if(gradedCount > 0) {
+            sb.replace(sb.length()-1, sb.length(), "");
+        }
+        return sb.toString();
+    }
+
+    private void appendTerm(StringBuilder sb, int t) {
+        sb.append("Term ").append(terms[t]).append("\n");
+        sb.append("Courses: ").append(termCounts[t]).append("\n");
+        sb.append("Average grade for term: ").append(String.format("%.2f", getAverageGradePerTerm(terms[t]))).append("\n");
+    }
+
+    public float getAverageGradePerTerm(int term) {
+        int t = termIndex(term);
+        if (t < 0) return 5f;
+        float average=0;
+        for(int slot = 0; slot < termCounts[t]; slot++){
+            average+=grades[courseIndex(termCourses[t * GRADES_PER_TERM + slot])];
+        }
+        return average/termCounts[t];
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getYearsOfStudy() {
+        return yearsOfStudy;
+    }
+    public float getAverageGrade() {
+        if (gradedCount == 0) return 5f;
+        return (float) gradeSum / gradedCount;
+    }
+
+    public int getCoursesPassed() {
+        return gradedCount;
+    }
+
+    int getArrival() {
+        return arrival;
+    }
+
+    void setArrival(int arrival) {
+        this.arrival = arrival;
+    }
+
+    // null when the student has no grade for the course
+    public Integer getGrade(Course course) {
+        int c = courseIndex(course.getId());
+        return c < 0 || !graded[c] ? null : grades[c];
+    }
+    public float getGradeOfCourse(Course course) {
+        return getGrade(course);
+    }
+}
@@ -0,0 +1,106 @@
+package OopDesign.FacultyApp;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Numbers distinct strings 0, 1, 2, ... and keeps one copy of each. A removed string gives its
+ * number back, and the next new string takes it, so the numbers stay dense and the table only
+ * grows with the most strings it held at once. Lookups probe an open-addressing table of numbers.
+ */
+class SymbolTable {
+    private String[] strings = new String[16];
+    // number + 1 per slot, 0 for an empty slot; never more than half full
+    private int[] slots = new int[32];
+    private int[] released = new int[16];
+    private int releasedCount;
+    // numbers handed out so far, whether in use or released
+    private int limit;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    // every number in use is below this
+    public int limit() {
+        return limit;
+    }
+
+    // the string numbered id, or null when id is not in use
+    public String get(int id) {
+        return strings[id];
+    }
+
+    // the number of the string, or -1
+    public int find(String string) {
+        return slots[slot(string)] - 1;
+    }
+
+    public int intern(String string) {
+        int slot = slot(string);
+        if (slots[slot] != 0) return slots[slot] - 1;
+        int id;
+        if (releasedCount > 0) {
+            id = released[--releasedCount];
+        } else {
+            if (limit == strings.length) strings = Arrays.copyOf(strings, limit * 2);
+            id = limit++;
+        }
+        strings[id] = string;
+        slots[slot] = id + 1;
+        if (++size * 2 > slots.length) rehash();
+        return id;
+    }
+
+    // takes the string out and frees its number; returns the number, or -1 if it was not there
+    public int remove(String string) {
+        int hole = slot(string);
+        int id = slots[hole] - 1;
+        if (id < 0) return -1;
+        int mask = slots.length - 1;
+        // pull later entries of the probe run back over the hole, unless that would put them before
+        // the slot they hash to
+        for (int i = (hole + 1) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            int home = home(strings[slots[i] - 1], mask);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                slots[hole] = slots[i];
+                hole = i;
+            }
+        }
+        slots[hole] = 0;
+        strings[id] = null;
+        if (releasedCount == released.length) released = Arrays.copyOf(released, releasedCount * 2);
+        released[releasedCount++] = id;
+        size--;
+        return id;
+    }
+
+    private int slot(String string) {
+        int mask = slots.length - 1;
+        int slot = home(string, mask);
+        while (slots[slot] != 0 && !Objects.equals(strings[slots[slot] - 1], string)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int home(String string, int mask) {
+        int hash = Objects.hashCode(string) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void rehash() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+        int mask = slots.length - 1;
+        for (int entry : old) {
+            if (entry == 0) continue;
+            int slot = home(strings[entry - 1], mask);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = entry;
+        }
+    }
+}
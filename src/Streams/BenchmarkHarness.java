@@ -0,0 +1,204 @@
+package Streams;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Runs registered benchmarks the way JMH would, without depending on it. Every benchmark runs in
+ * its own forked JVMs, so one benchmark's JIT profile and heap never shape another's; inside a
+ * fork it runs timed warmup iterations, then timed measurement iterations. The parent collects the
+ * measurement iterations of all forks and reports throughput, average time with its standard
+ * deviation across iterations, and bytes allocated per operation across all threads.
+ *
+ * <p>The benchmark's main builds a harness from its arguments, registers every benchmark and
+ * calls {@link #run()}. A fork is the same main started with {@code --fork=<name>}: it registers
+ * the same benchmarks and runs only that one. Options, anywhere among the arguments:
+ * {@code --forks=2 --warmup=3 --iterations=5 --millis=1000 --filter=<substring>}; with
+ * {@code --forks=0} everything runs in the calling JVM.
+ */
+class BenchmarkHarness {
+
+    private static final String RESULT = "iteration ";
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static int sink;
+
+    private final Class<?> mainClass;
+    private final List<String> arguments = new ArrayList<>();
+    private final List<String> options = new ArrayList<>();
+    private final Map<String, Supplier<IntSupplier>> benchmarks = new LinkedHashMap<>();
+    private int forks = 2;
+    private int warmupIterations = 3;
+    private int measurementIterations = 5;
+    private long iterationMillis = 1000;
+    private String filter = "";
+    private String fork;
+
+    public BenchmarkHarness(Class<?> mainClass, String[] args) {
+        this.mainClass = mainClass;
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                arguments.add(arg);
+                continue;
+            }
+            String value = arg.substring(arg.indexOf('=') + 1);
+            if (arg.startsWith("--forks=")) {
+                forks = Integer.parseInt(value);
+            } else if (arg.startsWith("--warmup=")) {
+                warmupIterations = Integer.parseInt(value);
+            } else if (arg.startsWith("--iterations=")) {
+                measurementIterations = Integer.parseInt(value);
+            } else if (arg.startsWith("--millis=")) {
+                iterationMillis = Long.parseLong(value);
+            } else if (arg.startsWith("--filter=")) {
+                filter = value;
+            } else if (arg.startsWith("--fork=")) {
+                fork = value;
+                continue;
+            } else {
+                throw new IllegalArgumentException("unknown option " + arg);
+            }
+            options.add(arg);
+        }
+    }
+
+    // the positional arguments, without the harness options
+    public String argument(int index, String defaultValue) {
+        return index < arguments.size() ? arguments.get(index) : defaultValue;
+    }
+
+    public boolean isFork() {
+        return fork != null;
+    }
+
+    /**
+     * Registers a benchmark. The setup runs once per fork, outside the timed iterations, and
+     * returns the operation to time; the operation returns a value so its work cannot be dropped.
+     */
+    public void add(String name, Supplier<IntSupplier> setup) {
+        if (benchmarks.putIfAbsent(name, setup) != null) throw new IllegalArgumentException("duplicate benchmark " + name);
+    }
+
+    public void run() {
+        if (fork != null) {
+            Supplier<IntSupplier> setup = benchmarks.get(fork);
+            if (setup == null) throw new IllegalArgumentException("no benchmark " + fork);
+            measure(setup, System.out);
+            return;
+        }
+        System.out.printf("%d forks, %d warmup and %d measurement iterations of %d ms%n",
+                forks, warmupIterations, measurementIterations, iterationMillis);
+        System.out.printf("%-48s %14s %12s %10s %14s%n", "benchmark", "ops/s", "us/op", "+-", "B/op");
+        for (Map.Entry<String, Supplier<IntSupplier>> benchmark : benchmarks.entrySet()) {
+            if (!benchmark.getKey().contains(filter)) continue;
+            List<long[]> iterations = forks == 0 ? measureHere(benchmark.getValue()) : measureForked(benchmark.getKey());
+            report(benchmark.getKey(), iterations);
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    private List<long[]> measureHere(Supplier<IntSupplier> setup) {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        measure(setup, new PrintStream(printed, true));
+        return parse(new BufferedReader(new StringReader(printed.toString())));
+    }
+
+    private List<long[]> measureForked(String name) {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(mainClass.getName());
+        command.addAll(arguments);
+        command.addAll(options);
+        command.add("--fork=" + name);
+
+        List<long[]> iterations = new ArrayList<>();
+        for (int f = 0; f < forks; f++) {
+            try {
+                Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    iterations.addAll(parse(output));
+                }
+                if (process.waitFor() != 0) throw new IllegalStateException(name + " fork exited with " + process.exitValue());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+        return iterations;
+    }
+
+    private void measure(Supplier<IntSupplier> setup, PrintStream out) {
+        IntSupplier operation = setup.get();
+        for (int i = 0; i < warmupIterations; i++) {
+            iteration(operation);
+        }
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] result = iteration(operation);
+            out.println(RESULT + result[0] + " " + result[1] + " " + result[2]);
+        }
+        out.println("sink " + sink);
+    }
+
+    private long[] iteration(IntSupplier operation) {
+        long deadline = System.nanoTime() + iterationMillis * 1_000_000;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long operations = 0;
+        long now;
+        do {
+            sink += operation.getAsInt();
+            operations++;
+        } while ((now = System.nanoTime()) < deadline);
+        return new long[]{operations, now - start, allocatedBytes() - allocatedBefore};
+    }
+
+    private static List<long[]> parse(BufferedReader output) {
+        List<long[]> iterations = new ArrayList<>();
+        try {
+            String line;
+            while ((line = output.readLine()) != null) {
+                if (!line.startsWith(RESULT)) continue;
+                String[] fields = line.substring(RESULT.length()).split(" ");
+                iterations.add(new long[]{Long.parseLong(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2])});
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return iterations;
+    }
+
+    private static void report(String name, List<long[]> iterations) {
+        long operations = 0, nanos = 0, allocated = 0;
+        for (long[] iteration : iterations) {
+            operations += iteration[0];
+            nanos += iteration[1];
+            allocated += iteration[2];
+        }
+        double mean = nanos / 1e3 / operations;
+        double squares = 0;
+        for (long[] iteration : iterations) {
+            double deviation = iteration[1] / 1e3 / iteration[0] - mean;
+            squares += deviation * deviation;
+        }
+        double deviation = iterations.size() > 1 ? Math.sqrt(squares / (iterations.size() - 1)) : 0;
+        System.out.printf("%-48s %14.1f %12.3f %10.3f %14.0f%n", name,
+                operations / (nanos / 1e9), mean, deviation, (double) allocated / operations);
+    }
+
+    private static long allocatedBytes() {
+        long total = 0;
+        for (long allocated : THREADS.getThreadAllocatedBytes(THREADS.getAllThreadIds())) {
+            if (allocated > 0) total += allocated;
+        }
+        return total;
+    }
+}
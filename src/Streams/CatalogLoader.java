@@ -0,0 +1,318 @@
+package Streams;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Loads and stores University catalogs.
+ * <p>
+ * The text format has one record per line. A line without ';' starts a department, and every
+ * following line {@code code;name;credits;difficulty;enrolledStudents} is a course of that
+ * department. Empty lines are skipped, and numbers that do not fit in an int are rejected. Names
+ * cannot hold ';' or line breaks, so {@link #write} rejects such names instead of writing a file
+ * that loads differently. The file is memory-mapped in chunks that end on line boundaries and the
+ * chunks are parsed in parallel straight from the mapped bytes.
+ * <p>
+ * The binary format stores department names and sizes, course codes and names, and then the
+ * credits, difficulty and enrolled columns as plain int arrays.
+ */
+class CatalogLoader {
+
+    private static final long MAX_CHUNK_SIZE = 64L << 20;
+    private static final int BINARY_MAGIC = 0x554E4956;
+    private static final int BINARY_VERSION = 1;
+
+    public static University load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            List<ParsedChunk> chunks;
+            try {
+                chunks = IntStream.range(0, bounds.length - 1)
+                        .parallel()
+                        .mapToObj(i -> parseChunk(channel, bounds[i], bounds[i + 1]))
+                        .collect(Collectors.toList());
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return new University(stitch(chunks));
+        }
+    }
+
+    public static void write(University university, Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (Department department : university.getDepartments()) {
+                // an empty department line would be read back as a skipped line
+                if (department.getName().isEmpty()) throw new IllegalArgumentException("Cannot write a department without a name");
+                writer.write(writable(department.getName()));
+                writer.write('\n');
+                for (Course course : department.getCourses()) {
+                    writer.write(writable(course.getCode()) + ';' + writable(course.getName()) + ';' + course.getCredits() + ';'
+                            + course.getDifficulty() + ';' + course.getEnrolledStudents() + '\n');
+                }
+            }
+        }
+    }
+
+    private static String writable(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ';' || c == '\n' || c == '\r') {
+                throw new IllegalArgumentException("Cannot write a name with ';' or a line break: " + name);
+            }
+        }
+        return name;
+    }
+
+    public static void writeBinary(University university, Path path) throws IOException {
+        List<Department> departments = university.getDepartments();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(BINARY_MAGIC);
+            out.writeInt(BINARY_VERSION);
+            out.writeInt(departments.size());
+            for (Department department : departments) {
+                writeString(out, department.getName());
+                out.writeInt(department.getCourses().size());
+            }
+            List<Course> courses = university.getAllCourses();
+            for (Course course : courses) {
+                writeString(out, course.getCode());
+                writeString(out, course.getName());
+            }
+            for (Course course : courses) out.writeInt(course.getCredits());
+            for (Course course : courses) out.writeInt(course.getDifficulty());
+            for (Course course : courses) out.writeInt(course.getEnrolledStudents());
+        }
+    }
+
+    public static University loadBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) throw new IOException("Binary catalog larger than 2GB: " + path);
+            BinaryReader in = new BinaryReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            if (in.getInt() != BINARY_MAGIC) throw new IOException("Not a binary catalog: " + path);
+            int version = in.getInt();
+            if (version != BINARY_VERSION) throw new IOException("Unsupported binary catalog version " + version);
+
+            int departmentCount = in.getInt();
+            String[] departmentNames = new String[departmentCount];
+            int[] departmentSizes = new int[departmentCount];
+            int courseCount = 0;
+            for (int d = 0; d < departmentCount; d++) {
+                departmentNames[d] = in.getString();
+                departmentSizes[d] = in.getInt();
+                courseCount += departmentSizes[d];
+            }
+            String[] codes = new String[courseCount];
+            String[] names = new String[courseCount];
+            for (int i = 0; i < courseCount; i++) {
+                codes[i] = in.getString();
+                names[i] = in.getString();
+            }
+            int[] credits = in.getInts(courseCount);
+            int[] difficulty = in.getInts(courseCount);
+            int[] enrolledStudents = in.getInts(courseCount);
+
+            List<Department> departments = new ArrayList<>(departmentCount);
+            int i = 0;
+            for (int d = 0; d < departmentCount; d++) {
+                List<Course> courses = new ArrayList<>(departmentSizes[d]);
+                for (int c = 0; c < departmentSizes[d]; c++, i++) {
+                    courses.add(new Course(codes[i], names[i], credits[i], difficulty[i], enrolledStudents[i]));
+                }
+                departments.add(new Department(departmentNames[d], courses));
+            }
+            return new University(departments);
+        }
+    }
+
+    private static long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(1 << 20, size / (parallelism * 4L) + 1));
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long position = chunkSize;
+        while (position < size) {
+            long lineStart = nextLineStart(channel, position);
+            if (lineStart >= size) break;
+            bounds.add(lineStart);
+            position = lineStart + chunkSize;
+        }
+        bounds.add(size);
+        return bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long size = channel.size();
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static ParsedChunk parseChunk(FileChannel channel, long from, long to) {
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+            return new ParsedChunk(buffer, from).parse();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static List<Department> stitch(List<ParsedChunk> chunks) throws IOException {
+        List<Department> departments = new ArrayList<>();
+        List<Course> current = null;
+        for (ParsedChunk chunk : chunks) {
+            if (!chunk.leadingCourses.isEmpty()) {
+                if (current == null) throw new IOException("Course line before the first department");
+                current.addAll(chunk.leadingCourses);
+            }
+            for (int d = 0; d < chunk.departmentNames.size(); d++) {
+                current = chunk.departmentCourses.get(d);
+                departments.add(new Department(chunk.departmentNames.get(d), current));
+            }
+        }
+        return departments;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        // lengths are written as unsigned LEB128, course codes and names then cost one length byte
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        while ((length & ~0x7F) != 0) {
+            out.writeByte((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        out.writeByte(length);
+        out.write(bytes);
+    }
+
+    private static class BinaryReader {
+        private final ByteBuffer in;
+        private byte[] scratch = new byte[256];
+
+        private BinaryReader(ByteBuffer in) {
+            this.in = in;
+        }
+
+        private int getInt() {
+            return in.getInt();
+        }
+
+        private String getString() {
+            int length = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = in.get();
+                length |= (b & 0x7F) << shift;
+                if (b >= 0) break;
+            }
+            if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+            in.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private int[] getInts(int count) {
+            int[] values = new int[count];
+            in.asIntBuffer().get(values);
+            in.position(in.position() + count * Integer.BYTES);
+            return values;
+        }
+    }
+
+    /**
+     * Departments and courses of one chunk. Courses before the first department line of the chunk
+     * belong to the last department of the previous chunk.
+     */
+    private static class ParsedChunk {
+        private final MappedByteBuffer buffer;
+        private final long offset;
+        private final List<Course> leadingCourses = new ArrayList<>();
+        private final List<String> departmentNames = new ArrayList<>();
+        private final List<List<Course>> departmentCourses = new ArrayList<>();
+        private byte[] scratch = new byte[256];
+
+        private ParsedChunk(MappedByteBuffer buffer, long offset) {
+            this.buffer = buffer;
+            this.offset = offset;
+        }
+
+        private ParsedChunk parse() throws IOException {
+            int limit = buffer.limit();
+            int[] separators = new int[4];
+            List<Course> current = leadingCourses;
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int separatorCount = 0;
+                int lineEnd = lineStart;
+                for (; lineEnd < limit; lineEnd++) {
+                    byte b = buffer.get(lineEnd);
+                    if (b == '\n') break;
+                    if (b == ';') {
+                        if (separatorCount == separators.length) throw malformed(lineStart);
+                        separators[separatorCount++] = lineEnd;
+                    }
+                }
+                int contentEnd = lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+                if (contentEnd > lineStart) {
+                    if (separatorCount == 0) {
+                        current = new ArrayList<>();
+                        departmentNames.add(string(lineStart, contentEnd));
+                        departmentCourses.add(current);
+                    } else if (separatorCount == 4) {
+                        current.add(new Course(
+                                string(lineStart, separators[0]),
+                                string(separators[0] + 1, separators[1]),
+                                parseInt(separators[1] + 1, separators[2]),
+                                parseInt(separators[2] + 1, separators[3]),
+                                parseInt(separators[3] + 1, contentEnd)));
+                    } else {
+                        throw malformed(lineStart);
+                    }
+                }
+                lineStart = lineEnd + 1;
+            }
+            return this;
+        }
+
+        private String string(int from, int to) {
+            int length = to - from;
+            if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+            buffer.get(from, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private int parseInt(int from, int to) throws IOException {
+            boolean negative = from < to && buffer.get(from) == '-';
+            int i = negative ? from + 1 : from;
+            if (i == to) throw malformed(from);
+            long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+            long value = 0;
+            for (; i < to; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) throw malformed(from);
+                value = value * 10 + digit;
+                if (value > limit) throw malformed(from);
+            }
+            return (int) (negative ? -value : value);
+        }
+
+        private IOException malformed(int position) {
+            return new IOException("Malformed catalog line at byte " + (offset + position));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package Streams;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Read-only list over several lists, used for merged departments so their courses are shared
+ * with the source departments until one of them changes.
+ */
+class ConcatenatedList<T> extends AbstractList<T> implements RandomAccess {
+    private final List<List<T>> parts;
+    private final int[] offsets;
+
+    public ConcatenatedList(List<List<T>> parts) {
+        this.parts = parts;
+        this.offsets = new int[parts.size() + 1];
+        for (int p = 0; p < parts.size(); p++) {
+            offsets[p + 1] = offsets[p] + parts.get(p).size();
+        }
+    }
+
+    @Override
+    public T get(int index) {
+        Objects.checkIndex(index, size());
+        int low = 0, high = parts.size() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= index) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return parts.get(low).get(index - offsets[low]);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return parts.stream().flatMap(List::stream).iterator();
+    }
+
+    @Override
+    public int size() {
+        return offsets[parts.size()];
+    }
+}
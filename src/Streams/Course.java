@@ -0,0 +1,50 @@
+package Streams;
+
+class Course {
+    private String code;
+    private String name;
+    private int credits;
+    private int difficulty;
+    private int enrolledStudents;
+
+    public Course(String code, String name, int credits, int difficulty, int enrolledStudents) {
+        this.code = code;
+        this.name = name;
+        this.credits = credits;
+        this.difficulty = difficulty;
+        this.enrolledStudents = enrolledStudents;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCredits() {
+        return credits;
+    }
+
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    public int getEnrolledStudents() {
+        return enrolledStudents;
+    }
+
+    Course copy() {
+        return new Course(code, name, credits, difficulty, enrolledStudents);
+    }
+
+    void setEnrolledStudents(int enrolledStudents) {
+        this.enrolledStudents = enrolledStudents;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%s)", code, name);
+    }
+}
@@ -0,0 +1,221 @@
+package Streams;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The catalog laid out as parallel arrays in catalog order, department by department. University
+ * keeps one instance across changes and applies each change here too, so neither the columns nor
+ * the range indexes built from them are rebuilt after an update.
+ */
+class CourseColumns {
+    private Department[] departments;
+    private int[] departmentOffsets;
+    private Course[] courses;
+    private int[] credits;
+    private int[] difficulty;
+    private int[] enrolledStudents;
+    private int size;
+    private CourseRangeIndex creditsIndex;
+    private CourseRangeIndex difficultyIndex;
+    private CourseRangeIndex enrolledStudentsIndex;
+
+    public CourseColumns(List<Department> departments) {
+        this.departments = departments.toArray(new Department[0]);
+        this.departmentOffsets = new int[this.departments.length + 1];
+        for (int d = 0; d < this.departments.length; d++) {
+            departmentOffsets[d] = size;
+            size += this.departments[d].getCourses().size();
+        }
+        departmentOffsets[this.departments.length] = size;
+
+        courses = new Course[size];
+        credits = new int[size];
+        difficulty = new int[size];
+        enrolledStudents = new int[size];
+        int i = 0;
+        for (Department department : this.departments) {
+            for (Course course : department.getCourses()) {
+                courses[i] = course;
+                credits[i] = course.getCredits();
+                difficulty[i] = course.getDifficulty();
+                enrolledStudents[i] = course.getEnrolledStudents();
+                i++;
+            }
+        }
+    }
+
+    void departmentAdded(Department department) {
+        departments = Arrays.copyOf(departments, departments.length + 1);
+        departments[departments.length - 1] = department;
+        departmentOffsets = Arrays.copyOf(departmentOffsets, departmentOffsets.length + 1);
+        departmentOffsets[departments.length] = size;
+        insert(departments.length - 1, size, department.getCourses());
+    }
+
+    void departmentRemoved(int d) {
+        int from = departmentOffsets[d], to = departmentOffsets[d + 1];
+        remove(d, from, to);
+        System.arraycopy(departments, d + 1, departments, d, departments.length - d - 1);
+        departments = Arrays.copyOf(departments, departments.length - 1);
+        System.arraycopy(departmentOffsets, d + 1, departmentOffsets, d, departmentOffsets.length - d - 1);
+        departmentOffsets = Arrays.copyOf(departmentOffsets, departmentOffsets.length - 1);
+    }
+
+    // the course was appended to the department, wherever the department is listed
+    void courseAdded(Department department, Course course) {
+        for (int d = departments.length - 1; d >= 0; d--) {
+            if (departments[d] == department) insert(d, departmentOffsets[d + 1], List.of(course));
+        }
+    }
+
+    // the first listing of the course was removed from the department
+    void courseRemoved(Department department, Course course) {
+        for (int d = departments.length - 1; d >= 0; d--) {
+            if (departments[d] != department) continue;
+            int i = departmentOffsets[d];
+            while (courses[i] != course) i++;
+            remove(d, i, i + 1);
+        }
+    }
+
+    // the department copied its courses, which keep their order and values
+    void coursesReplaced(Department department) {
+        for (int d = 0; d < departments.length; d++) {
+            if (departments[d] != department) continue;
+            List<Course> replaced = department.getCourses();
+            for (int i = departmentOffsets[d]; i < departmentOffsets[d + 1]; i++) {
+                courses[i] = replaced.get(i - departmentOffsets[d]);
+            }
+        }
+    }
+
+    void enrollmentChanged(Department department, Course course) {
+        int enrolled = course.getEnrolledStudents();
+        for (int d = 0; d < departments.length; d++) {
+            if (departments[d] != department) continue;
+            for (int i = departmentOffsets[d]; i < departmentOffsets[d + 1]; i++) {
+                if (courses[i] != course || enrolledStudents[i] == enrolled) continue;
+                if (enrolledStudentsIndex != null) enrolledStudentsIndex.update(i, enrolledStudents[i], enrolled);
+                enrolledStudents[i] = enrolled;
+            }
+        }
+    }
+
+    private void insert(int d, int at, List<Course> added) {
+        int count = added.size();
+        if (size + count > courses.length) {
+            int capacity = Math.max(size + count, courses.length + (courses.length >> 1));
+            courses = Arrays.copyOf(courses, capacity);
+            credits = Arrays.copyOf(credits, capacity);
+            difficulty = Arrays.copyOf(difficulty, capacity);
+            enrolledStudents = Arrays.copyOf(enrolledStudents, capacity);
+        }
+        int tail = size - at;
+        System.arraycopy(courses, at, courses, at + count, tail);
+        System.arraycopy(credits, at, credits, at + count, tail);
+        System.arraycopy(difficulty, at, difficulty, at + count, tail);
+        System.arraycopy(enrolledStudents, at, enrolledStudents, at + count, tail);
+        for (int j = 0; j < count; j++) {
+            Course course = added.get(j);
+            courses[at + j] = course;
+            credits[at + j] = course.getCredits();
+            difficulty[at + j] = course.getDifficulty();
+            enrolledStudents[at + j] = course.getEnrolledStudents();
+        }
+        size += count;
+        for (int e = d + 1; e < departmentOffsets.length; e++) {
+            departmentOffsets[e] += count;
+        }
+        if (creditsIndex != null) creditsIndex.insert(at, Arrays.copyOfRange(credits, at, at + count));
+        if (difficultyIndex != null) difficultyIndex.insert(at, Arrays.copyOfRange(difficulty, at, at + count));
+        if (enrolledStudentsIndex != null) enrolledStudentsIndex.insert(at, Arrays.copyOfRange(enrolledStudents, at, at + count));
+    }
+
+    private void remove(int d, int from, int to) {
+        int count = to - from;
+        int tail = size - to;
+        System.arraycopy(courses, to, courses, from, tail);
+        System.arraycopy(credits, to, credits, from, tail);
+        System.arraycopy(difficulty, to, difficulty, from, tail);
+        System.arraycopy(enrolledStudents, to, enrolledStudents, from, tail);
+        size -= count;
+        Arrays.fill(courses, size, size + count, null);
+        for (int e = d + 1; e < departmentOffsets.length; e++) {
+            departmentOffsets[e] -= count;
+        }
+        if (creditsIndex != null) creditsIndex.remove(from, to);
+        if (difficultyIndex != null) difficultyIndex.remove(from, to);
+        if (enrolledStudentsIndex != null) enrolledStudentsIndex.remove(from, to);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int departmentCount() {
+        return departments.length;
+    }
+
+    public Department department(int d) {
+        return departments[d];
+    }
+
+    public int departmentStart(int d) {
+        return departmentOffsets[d];
+    }
+
+    public int departmentEnd(int d) {
+        return departmentOffsets[d + 1];
+    }
+
+    public int departmentOf(int i) {
+        int low = 0, high = departments.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (departmentOffsets[mid] <= i) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    public Course course(int i) {
+        return courses[i];
+    }
+
+    public int credits(int i) {
+        return credits[i];
+    }
+
+    public int difficulty(int i) {
+        return difficulty[i];
+    }
+
+    public int enrolledStudents(int i) {
+        return enrolledStudents[i];
+    }
+
+    public CourseRangeIndex creditsIndex() {
+        if (creditsIndex == null) {
+            creditsIndex = new CourseRangeIndex(credits, size);
+        }
+        return creditsIndex;
+    }
+
+    public CourseRangeIndex difficultyIndex() {
+        if (difficultyIndex == null) {
+            difficultyIndex = new CourseRangeIndex(difficulty, size);
+        }
+        return difficultyIndex;
+    }
+
+    public CourseRangeIndex enrolledStudentsIndex() {
+        if (enrolledStudentsIndex == null) {
+            enrolledStudentsIndex = new CourseRangeIndex(enrolledStudents, size);
+        }
+        return enrolledStudentsIndex;
+    }
+}
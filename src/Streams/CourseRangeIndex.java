@@ -0,0 +1,138 @@
+package Streams;
+
+import java.util.Arrays;
+
+/**
+ * Course positions sorted by one column, ties in catalog order. A range query finds its bounds
+ * with two binary searches and only touches the matching positions.
+ *
+ * <p>The index is built once with a sort and then kept up to date as the catalog changes: a changed
+ * key moves its one entry, and inserting or removing courses shifts the positions behind them and
+ * merges or drops the entries. Each change costs one pass over the index, O(n) with no sorting
+ * beyond the m inserted keys, instead of the O(n log n) sort a rebuild would take.
+ */
+class CourseRangeIndex {
+    private int[] keys;
+    private int[] positions;
+    private int size;
+
+    public CourseRangeIndex(int[] column, int size) {
+        long[] entries = new long[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = entry(column[i], i);
+        }
+        Arrays.sort(entries);
+        keys = new int[size];
+        positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = (int) (entries[i] >> 32);
+            positions[i] = (int) entries[i];
+        }
+        this.size = size;
+    }
+
+    /**
+     * Positions of the courses with min <= key <= max, in catalog order.
+     */
+    public int[] range(int min, int max) {
+        if (min > max) return new int[0];
+        int from = lowerBound(min);
+        int to = max == Integer.MAX_VALUE ? size : lowerBound(max + 1);
+        int[] result = Arrays.copyOfRange(positions, from, to);
+        if (from < to && keys[from] != keys[to - 1]) {
+            Arrays.sort(result);
+        }
+        return result;
+    }
+
+    // the course at position changed its key from oldKey to newKey
+    void update(int position, int oldKey, int newKey) {
+        int from = indexOf(entry(oldKey, position));
+        // index the entry would take with the old one gone
+        int to = indexOf(entry(newKey, position));
+        if (to > from) {
+            to--;
+            System.arraycopy(keys, from + 1, keys, from, to - from);
+            System.arraycopy(positions, from + 1, positions, from, to - from);
+        } else {
+            System.arraycopy(keys, to, keys, to + 1, from - to);
+            System.arraycopy(positions, to, positions, to + 1, from - to);
+        }
+        keys[to] = newKey;
+        positions[to] = position;
+    }
+
+    // courses with the given keys were inserted at positions at, at + 1, ...
+    void insert(int at, int[] added) {
+        int count = added.length;
+        long[] entries = new long[count];
+        for (int j = 0; j < count; j++) {
+            entries[j] = entry(added[j], at + j);
+        }
+        Arrays.sort(entries);
+        for (int i = 0; i < size; i++) {
+            if (positions[i] >= at) positions[i] += count;
+        }
+        if (size + count > keys.length) {
+            int capacity = Math.max(size + count, keys.length + (keys.length >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+        // merge from the back so every entry moves at most once
+        int i = size - 1, j = count - 1;
+        for (int k = size + count - 1; j >= 0; k--) {
+            if (i >= 0 && entry(keys[i], positions[i]) > entries[j]) {
+                keys[k] = keys[i];
+                positions[k] = positions[i--];
+            } else {
+                keys[k] = (int) (entries[j] >> 32);
+                positions[k] = (int) entries[j--];
+            }
+        }
+        size += count;
+    }
+
+    // the courses at positions from..to were removed
+    void remove(int from, int to) {
+        int count = to - from;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            int position = positions[i];
+            if (position >= from && position < to) continue;
+            keys[kept] = keys[i];
+            positions[kept++] = position >= to ? position - count : position;
+        }
+        size = kept;
+    }
+
+    private int lowerBound(int key) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // index of the first entry not less than the given one
+    private int indexOf(long entry) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entry(keys[mid], positions[mid]) < entry) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long entry(int key, int position) {
+        return ((long) key << 32) | position;
+    }
+}
@@ -0,0 +1,69 @@
+package Streams;
+
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Walks course positions of a {@link CourseColumns}. Splits prefer a department boundary close
+ * to the middle of the range and fall back to the middle when a department is too large.
+ */
+class CourseRangeSpliterator implements Spliterator.OfInt {
+    private final CourseColumns columns;
+    private int from;
+    private final int to;
+    private final int minSize;
+
+    public CourseRangeSpliterator(CourseColumns columns, int from, int to, int minSize) {
+        this.columns = columns;
+        this.from = from;
+        this.to = to;
+        this.minSize = minSize;
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    @Override
+    public CourseRangeSpliterator trySplit() {
+        if (to - from < 2 * minSize) return null;
+        int mid = (from + to) >>> 1;
+        int d = columns.departmentOf(mid);
+        int split = mid - columns.departmentStart(d) <= columns.departmentEnd(d) - mid
+                ? columns.departmentStart(d) : columns.departmentEnd(d);
+        if (split - from < minSize || to - split < minSize) {
+            split = mid;
+        }
+        CourseRangeSpliterator prefix = new CourseRangeSpliterator(columns, from, split, minSize);
+        from = split;
+        return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(IntConsumer action) {
+        if (from >= to) return false;
+        action.accept(from++);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(IntConsumer action) {
+        while (from < to) {
+            action.accept(from++);
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        return to - from;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | SIZED | SUBSIZED | IMMUTABLE | NONNULL | DISTINCT;
+    }
+}
@@ -0,0 +1,92 @@
+package Streams;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class Department {
+    private String name;
+    private List<Course> courses;
+    private boolean shared;
+
+    public Department(String name, List<Course> courses) {
+        this.name = name;
+        this.courses = courses;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Course> getCourses() {
+        return courses;
+    }
+
+    void addCourse(Course course) {
+        ensureMutable();
+        courses.add(course);
+    }
+
+    Course removeCourse(String code) {
+        for (int i = 0; i < courses.size(); i++) {
+            if (courses.get(i).getCode().equals(code)) {
+                ensureMutable();
+                return courses.remove(i);
+            }
+        }
+        return null;
+    }
+
+    Course findCourse(String code) {
+        for (Course course : courses) {
+            if (course.getCode().equals(code)) return course;
+        }
+        return null;
+    }
+
+    // the same courses in a new department; whichever of the two is changed first copies them
+    Department share() {
+        shared = true;
+        Department copy = new Department(name, courses);
+        copy.shared = true;
+        return copy;
+    }
+
+    // one department viewing the courses of all parts, copied on its or their first change
+    static Department merge(String name, List<Department> parts) {
+        List<List<Course>> courses = new ArrayList<>(parts.size());
+        for (Department part : parts) {
+            part.shared = true;
+            courses.add(part.courses);
+        }
+        Department merged = new Department(name, new ConcatenatedList<>(courses));
+        merged.shared = true;
+        return merged;
+    }
+
+    /**
+     * Gives the department its own copy of every course if it still shares them with another
+     * department. Returns whether the courses were replaced.
+     */
+    boolean unshare() {
+        if (!shared) return false;
+        List<Course> copies = new ArrayList<>(courses.size());
+        for (Course course : courses) {
+            copies.add(course.copy());
+        }
+        courses = copies;
+        shared = false;
+        return true;
+    }
+
+    private void ensureMutable() {
+        // catalogs are usually built from Arrays.asList, which cannot grow or shrink
+        if (!(courses instanceof ArrayList)) {
+            courses = new ArrayList<>(courses);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,58 @@
+package Streams;
+
+import java.util.NoSuchElementException;
+
+class DepartmentStats {
+    private int credits;
+    private long difficulty;
+    private int courses;
+    private int enrolledStudents;
+
+    public void add(Course course) {
+        credits += course.getCredits();
+        difficulty += course.getDifficulty();
+        enrolledStudents += course.getEnrolledStudents();
+        courses++;
+    }
+
+    public void remove(Course course) {
+        credits -= course.getCredits();
+        difficulty -= course.getDifficulty();
+        enrolledStudents -= course.getEnrolledStudents();
+        courses--;
+    }
+
+    public void merge(DepartmentStats other) {
+        credits += other.credits;
+        difficulty += other.difficulty;
+        enrolledStudents += other.enrolledStudents;
+        courses += other.courses;
+    }
+
+    public DepartmentStats copy() {
+        DepartmentStats copy = new DepartmentStats();
+        copy.merge(this);
+        return copy;
+    }
+
+    public void updateEnrollment(int oldEnrolled, int newEnrolled) {
+        enrolledStudents += newEnrolled - oldEnrolled;
+    }
+
+    public int getCredits() {
+        return credits;
+    }
+
+    public double getAverageDifficulty() {
+        if (courses == 0) throw new NoSuchElementException("No value present");
+        return (double) difficulty / courses;
+    }
+
+    public int getCourses() {
+        return courses;
+    }
+
+    public int getEnrolledStudents() {
+        return enrolledStudents;
+    }
+}
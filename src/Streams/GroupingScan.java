@@ -0,0 +1,56 @@
+package Streams;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Partial result of a grouping scan. Keys are kept in first-seen order and the key of the last
+ * course is remembered, so {@link #toHashMap()} can replay the inserts groupingBy would have made
+ * and return a HashMap with the same iteration order.
+ */
+class GroupingScan<K, V> {
+    private final Map<K, V> groups = new LinkedHashMap<>();
+    private K lastKey;
+    private boolean lastKeyNew;
+
+    public V group(K key, Function<K, V> factory) {
+        V group = groups.get(key);
+        lastKeyNew = group == null;
+        lastKey = key;
+        if (group == null) {
+            group = factory.apply(key);
+            groups.put(key, group);
+        }
+        return group;
+    }
+
+    public void merge(K key, V value, BinaryOperator<V> merger) {
+        int size = groups.size();
+        groups.merge(key, value, merger);
+        lastKeyNew = groups.size() > size;
+        lastKey = key;
+    }
+
+    public GroupingScan<K, V> combine(GroupingScan<K, V> right, BinaryOperator<V> merger) {
+        if (right.groups.isEmpty()) return this;
+        boolean rightLastKeyNew = right.lastKeyNew && !groups.containsKey(right.lastKey);
+        right.groups.forEach((key, value) -> groups.merge(key, value, merger));
+        lastKey = right.lastKey;
+        lastKeyNew = rightLastKeyNew;
+        return this;
+    }
+
+    public Map<K, V> toHashMap() {
+        // computeIfAbsent links new keys at the head of their bucket, like groupingBy did
+        Map<K, V> result = new HashMap<>();
+        groups.forEach((key, value) -> result.computeIfAbsent(key, k -> value));
+        if (!lastKeyNew && !groups.isEmpty()) {
+            // groupingBy kept calling computeIfAbsent after its last new key, which applies a pending resize
+            result.computeIfAbsent(lastKey, k -> null);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,32 @@
+package Streams;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+class ParallelCourseScan<R> extends RecursiveTask<R> {
+    private static final long serialVersionUID = 1L;
+
+    private final RangeScanner<R> scanner;
+    private final BinaryOperator<R> combiner;
+    private final CourseColumns columns;
+    private final CourseRangeSpliterator range;
+
+    public ParallelCourseScan(RangeScanner<R> scanner, BinaryOperator<R> combiner, CourseColumns columns, CourseRangeSpliterator range) {
+        this.scanner = scanner;
+        this.combiner = combiner;
+        this.columns = columns;
+        this.range = range;
+    }
+
+    @Override
+    protected R compute() {
+        CourseRangeSpliterator prefix = range.trySplit();
+        if (prefix == null) {
+            return scanner.scan(columns, range.getFrom(), range.getTo());
+        }
+        ParallelCourseScan<R> left = new ParallelCourseScan<>(scanner, combiner, columns, prefix);
+        left.fork();
+        R right = compute();
+        return combiner.apply(left.join(), right);
+    }
+}
@@ -0,0 +1,8 @@
+package Streams;
+
+import java.io.PrintWriter;
+import java.util.Scanner;
+
+interface QueryHandler {
+    void handle(University university, Scanner sc, PrintWriter out);
+}
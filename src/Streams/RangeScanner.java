@@ -0,0 +1,5 @@
+package Streams;
+
+interface RangeScanner<R> {
+    R scan(CourseColumns columns, int from, int to);
+}
@@ -0,0 +1,26 @@
+package Streams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class SyntheticCatalog {
+
+    public static List<Department> generate(int departmentCount, int coursesPerDepartment, long seed) {
+        Random random = new Random(seed);
+        List<Department> departments = new ArrayList<>(departmentCount);
+        for (int d = 0; d < departmentCount; d++) {
+            List<Course> courses = new ArrayList<>(coursesPerDepartment);
+            for (int c = 0; c < coursesPerDepartment; c++) {
+                courses.add(new Course(
+                        String.format("D%dC%d", d, c),
+                        String.format("Course %d of department %d", c, d),
+                        3 + random.nextInt(5),
+                        1 + random.nextInt(10),
+                        random.nextInt(1000)));
+            }
+            departments.add(new Department("Department " + d, courses));
+        }
+        return departments;
+    }
+}
@@ -0,0 +1,87 @@
+package Streams;
+
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Keeps the k best course positions seen so far in a min-heap whose root is the worst kept
+ * course. Equal courses rank by catalog position, earlier first, so the result matches a stable
+ * descending sort followed by limit(k). The heap is sized for the positions it expects to see,
+ * never more than k, and only grows towards k when merged with another heap.
+ */
+class TopKHeap {
+    private int[] heap;
+    private final int k;
+    private final IntBinaryOperator ranking;
+    private int size;
+
+    public TopKHeap(int k, int expected, IntBinaryOperator ranking) {
+        this.heap = new int[Math.min(k, expected)];
+        this.k = k;
+        this.ranking = ranking;
+    }
+
+    public void offer(int position) {
+        if (size < k) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, (int) Math.min(k, Math.max(8, 2L * size)));
+            heap[size] = position;
+            siftUp(size++);
+        } else if (size > 0 && rank(position, heap[0]) > 0) {
+            heap[0] = position;
+            siftDown(0);
+        }
+    }
+
+    public TopKHeap merge(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.heap[i]);
+        }
+        return this;
+    }
+
+    /**
+     * The kept positions, best first. Empties the heap.
+     */
+    public int[] drain() {
+        int[] result = new int[size];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+        }
+        return result;
+    }
+
+    private int rank(int a, int b) {
+        int result = ranking.applyAsInt(a, b);
+        return result != 0 ? result : Integer.compare(b, a);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (rank(heap[i], heap[parent]) >= 0) return;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && rank(heap[left], heap[smallest]) < 0) smallest = left;
+            if (right < size && rank(heap[right], heap[smallest]) < 0) smallest = right;
+            if (smallest == i) return;
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
@@ -0,0 +1,548 @@
+package Streams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Per-department and catalog-wide aggregates are kept up to date by the mutators below, so the
+ * aggregate queries never rescan the courses. Scan and range queries go through
+ * {@link CourseColumns} and its range indexes, which are built on the first query and then updated
+ * in place by every change, each in one pass over the catalog without re-sorting it. Courses and
+ * departments must be changed through this class for the aggregates to stay correct.
+ */
+class University {
+
+    private static final int PARALLEL_LEAF_SIZE = 1 << 13;
+
+    private List<Department> departments;
+    private List<DepartmentStats> stats;
+    private int totalStudents;
+    private Map<Integer, Integer> studentsByDifficulty;
+    private Map<Integer, Integer> coursesByDifficulty;
+    private CourseColumns columns;
+    private ForkJoinPool pool;
+    private int modCount;
+
+    private University(List<Department> departments, List<DepartmentStats> stats, University source) {
+        this.departments = departments;
+        this.stats = stats;
+        this.totalStudents = source.totalStudents;
+        this.studentsByDifficulty = new HashMap<>(source.studentsByDifficulty);
+        this.coursesByDifficulty = new HashMap<>(source.coursesByDifficulty);
+    }
+
+    public University(List<Department> departments) {
+        this.departments = new ArrayList<>(departments);
+        this.stats = new ArrayList<>(departments.size());
+        this.studentsByDifficulty = new HashMap<>();
+        this.coursesByDifficulty = new HashMap<>();
+        for (Department department : departments) {
+            DepartmentStats departmentStats = new DepartmentStats();
+            department.getCourses().forEach(course -> {
+                departmentStats.add(course);
+                addToTotals(course);
+            });
+            stats.add(departmentStats);
+        }
+    }
+
+    public void addDepartment(Department department) {
+        DepartmentStats departmentStats = new DepartmentStats();
+        department.getCourses().forEach(course -> {
+            departmentStats.add(course);
+            addToTotals(course);
+        });
+        departments.add(department);
+        stats.add(departmentStats);
+        if (columns != null) columns.departmentAdded(department);
+        catalogChanged();
+    }
+
+    public boolean removeDepartment(String departmentName) {
+        int d = indexOf(departmentName);
+        if (d < 0) return false;
+        departments.remove(d).getCourses().forEach(this::removeFromTotals);
+        stats.remove(d);
+        if (columns != null) columns.departmentRemoved(d);
+        catalogChanged();
+        return true;
+    }
+
+    public boolean addCourse(String departmentName, Course course) {
+        int d = indexOf(departmentName);
+        if (d < 0) return false;
+        Department department = ownedDepartment(d);
+        department.addCourse(course);
+        stats.get(d).add(course);
+        addToTotals(course);
+        if (columns != null) columns.courseAdded(department, course);
+        catalogChanged();
+        return true;
+    }
+
+    public boolean removeCourse(String departmentName, String code) {
+        int d = indexOf(departmentName);
+        if (d < 0) return false;
+        Department department = ownedDepartment(d);
+        Course removed = department.removeCourse(code);
+        if (removed == null) return false;
+        stats.get(d).remove(removed);
+        removeFromTotals(removed);
+        if (columns != null) columns.courseRemoved(department, removed);
+        catalogChanged();
+        return true;
+    }
+
+    public boolean updateEnrollment(String departmentName, String code, int enrolledStudents) {
+        int d = indexOf(departmentName);
+        if (d < 0) return false;
+        if (departments.get(d).findCourse(code) == null) return false;
+        Department department = ownedDepartment(d);
+        Course course = department.findCourse(code);
+        int old = course.getEnrolledStudents();
+        course.setEnrolledStudents(enrolledStudents);
+        stats.get(d).updateEnrollment(old, enrolledStudents);
+        totalStudents += enrolledStudents - old;
+        studentsByDifficulty.merge(course.getDifficulty(), enrolledStudents - old, Integer::sum);
+        if (columns != null) columns.enrollmentChanged(department, course);
+        catalogChanged();
+        return true;
+    }
+
+    /**
+     * Incremented on every catalog change, so callers can tell whether cached results are stale.
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
+    private void catalogChanged() {
+        modCount++;
+    }
+
+    private int indexOf(String departmentName) {
+        for (int d = 0; d < departments.size(); d++) {
+            if (departments.get(d).getName().equals(departmentName)) return d;
+        }
+        return -1;
+    }
+
+    // a department still sharing its courses with a merged university copies them before it changes
+    private Department ownedDepartment(int d) {
+        Department department = departments.get(d);
+        if (department.unshare() && columns != null) columns.coursesReplaced(department);
+        return department;
+    }
+
+    private void addToTotals(Course course) {
+        totalStudents += course.getEnrolledStudents();
+        studentsByDifficulty.merge(course.getDifficulty(), course.getEnrolledStudents(), Integer::sum);
+        coursesByDifficulty.merge(course.getDifficulty(), 1, Integer::sum);
+    }
+
+    private void removeFromTotals(Course course) {
+        totalStudents -= course.getEnrolledStudents();
+        if (coursesByDifficulty.merge(course.getDifficulty(), -1, Integer::sum) == 0) {
+            coursesByDifficulty.remove(course.getDifficulty());
+            studentsByDifficulty.remove(course.getDifficulty());
+        } else {
+            studentsByDifficulty.merge(course.getDifficulty(), -course.getEnrolledStudents(), Integer::sum);
+        }
+    }
+
+    public List<Department> getDepartments() {
+        return Collections.unmodifiableList(departments);
+    }
+
+    private CourseColumns columns() {
+        if (columns == null) {
+            columns = new CourseColumns(departments);
+        }
+        return columns;
+    }
+
+
+    public List<String> getAllCourseNames() {
+        String[] names = new String[columns().size()];
+        scan((columns, from, to) -> {
+            for (int i = from; i < to; i++) {
+                names[i] = columns.course(i).getName();
+            }
+            return null;
+        }, (left, right) -> null);
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    public List<Course> getCoursesWithMinCredits(int minCredits) {
+        CourseColumns columns = columns();
+        return coursesAt(columns, columns.creditsIndex().range(minCredits, Integer.MAX_VALUE));
+    }
+
+    public int getTotalStudentCount() {
+        return totalStudents;
+    }
+
+    public Optional<Course> getHardestCourse() {
+        int hardest = scan((columns, from, to) -> {
+            int best = -1;
+            for (int i = from; i < to; i++) {
+                if (best < 0 || columns.difficulty(i) > columns.difficulty(best)) {
+                    best = i;
+                }
+            }
+            return best;
+        }, (left, right) -> left < 0 || (right >= 0 && columns.difficulty(right) > columns.difficulty(left)) ? right : left);
+        return hardest < 0 ? Optional.empty() : Optional.of(columns.course(hardest));
+    }
+
+    public Map<Integer, List<Course>> groupByDifficulty() {
+        return scan((columns, from, to) -> {
+            GroupingScan<Integer, List<Course>> groups = new GroupingScan<>();
+            for (int i = from; i < to; i++) {
+                groups.group(columns.difficulty(i), k -> new ArrayList<>()).add(columns.course(i));
+            }
+            return groups;
+        }, (left, right) -> left.combine(right, University::concat)).toHashMap();
+    }
+
+    public Map<String, Integer> getCourseEnrollmentMap() {
+        return scan((columns, from, to) -> {
+            GroupingScan<String, Integer> groups = new GroupingScan<>();
+            for (int i = from; i < to; i++) {
+                groups.merge(columns.course(i).getCode(), columns.enrolledStudents(i), Integer::sum);
+            }
+            return groups;
+        }, (left, right) -> left.combine(right, Integer::sum)).toHashMap();
+    }
+
+    public double getAverageEnrollmentPerCourse() {
+        if (columns().size() == 0) throw new RuntimeException();
+        long sum = scan((columns, from, to) -> {
+            long partial = 0;
+            for (int i = from; i < to; i++) {
+                partial += columns.enrolledStudents(i);
+            }
+            return partial;
+        }, Long::sum);
+        return (double) sum / columns.size();
+    }
+
+    public List<String> getSortedCourseCodes() {
+        String[] codes = new String[columns().size()];
+        String[] buffer = new String[codes.length];
+        // each range sorts its own slice, neighbouring slices are then merged in order
+        scan((columns, from, to) -> {
+            for (int i = from; i < to; i++) {
+                codes[i] = columns.course(i).getCode();
+            }
+            Arrays.sort(codes, from, to);
+            return new int[]{from, to};
+        }, (left, right) -> {
+            mergeSorted(codes, buffer, left[0], left[1], right[1]);
+            return new int[]{left[0], right[1]};
+        });
+        return new ArrayList<>(Arrays.asList(codes));
+    }
+
+    public Map<String, List<String>> getDepartmentToCourseNames() {
+        String[] names = new String[columns().size()];
+        scan((columns, from, to) -> {
+            for (int i = from; i < to; i++) {
+                names[i] = columns.course(i).getName();
+            }
+            return null;
+        }, (left, right) -> null);
+        Map<String, List<String>> result = new HashMap<>();
+        for (int d = 0; d < columns.departmentCount(); d++) {
+            List<String> departmentNames = new ArrayList<>(Arrays.asList(names).subList(columns.departmentStart(d), columns.departmentEnd(d)));
+            putUnique(result, columns.department(d).getName(), departmentNames);
+        }
+        return result;
+    }
+
+    public List<Course> getAllCourses() {
+        Course[] courses = new Course[columns().size()];
+        scan((columns, from, to) -> {
+            for (int i = from; i < to; i++) {
+                courses[i] = columns.course(i);
+            }
+            return null;
+        }, (left, right) -> null);
+        return new ArrayList<>(Arrays.asList(courses));
+    }
+
+    public Optional<Department> getMostPopularDepartment() {
+        if (departments.isEmpty()) return Optional.empty();
+        int best = 0;
+        for (int d = 1; d < stats.size(); d++) {
+            if (stats.get(d).getEnrolledStudents() > stats.get(best).getEnrolledStudents()) {
+                best = d;
+            }
+        }
+        return Optional.of(departments.get(best));
+    }
+
+    public Map<Integer, Integer> getStudentsByDifficulty() {
+        Map<Integer, Integer> result = new HashMap<>();
+        studentsByDifficulty.forEach(result::put);
+        return result;
+    }
+
+    public List<Course> getCoursesByDifficultyRange(int min, int max) {
+        CourseColumns columns = columns();
+        return coursesAt(columns, columns.difficultyIndex().range(min, max));
+    }
+
+    public List<String> getPopularCourseCodes(int minStudents) {
+        CourseColumns columns = columns();
+        int[] positions = columns.enrolledStudentsIndex().range(minStudents, Integer.MAX_VALUE);
+        List<String> result = new ArrayList<>(positions.length);
+        for (int i : positions) {
+            result.add(columns.course(i).getCode());
+        }
+        return result;
+    }
+
+    public Map<String, Integer> getTotalCreditsPerDepartment() {
+        Map<String, Integer> result = new HashMap<>();
+        for (int d = 0; d < departments.size(); d++) {
+            putUnique(result, departments.get(d).getName(), stats.get(d).getCredits());
+        }
+        return result;
+    }
+
+    public List<Course> getTop3HardestCourses() {
+        return getTopKHardestCourses(3);
+    }
+
+    public List<Course> getTopKHardestCourses(int k) {
+        CourseColumns columns = columns();
+        return topK(k, (a, b) -> Integer.compare(columns.difficulty(a), columns.difficulty(b)));
+    }
+
+    public List<Course> getTopKMostEnrolledCourses(int k) {
+        CourseColumns columns = columns();
+        return topK(k, (a, b) -> Integer.compare(columns.enrolledStudents(a), columns.enrolledStudents(b)));
+    }
+
+    public List<Course> getTopKCoursesByCredits(int k) {
+        CourseColumns columns = columns();
+        return topK(k, (a, b) -> Integer.compare(columns.credits(a), columns.credits(b)));
+    }
+
+    /**
+     * The k greatest courses by the comparator, greatest first. Equal courses keep catalog order,
+     * the same as sorting with comparator.reversed() and taking the first k.
+     */
+    public List<Course> getTopK(int k, Comparator<? super Course> comparator) {
+        CourseColumns columns = columns();
+        return topK(k, (a, b) -> comparator.compare(columns.course(a), columns.course(b)));
+    }
+
+    private List<Course> topK(int k, IntBinaryOperator ranking) {
+        if (k < 0) throw new IllegalArgumentException("k must not be negative: " + k);
+        int[] top = scan((columns, from, to) -> {
+            TopKHeap heap = new TopKHeap(k, to - from, ranking);
+            for (int i = from; i < to; i++) {
+                heap.offer(i);
+            }
+            return heap;
+        }, TopKHeap::merge).drain();
+        return coursesAt(columns, top);
+    }
+
+
+    public Map<String, Double> getAverageDifficultyPerDepartment() {
+        Map<String, Double> result = new HashMap<>();
+        for (int d = 0; d < departments.size(); d++) {
+            putUnique(result, departments.get(d).getName(), stats.get(d).getAverageDifficulty());
+        }
+        return result;
+    }
+
+
+
+    public IntSummaryStatistics getEnrollmentStatistics() {
+        return scan((columns, from, to) -> {
+            IntSummaryStatistics statistics = new IntSummaryStatistics();
+            for (int i = from; i < to; i++) {
+                statistics.accept(columns.enrolledStudents(i));
+            }
+            return statistics;
+        }, (left, right) -> {
+            left.combine(right);
+            return left;
+        });
+    }
+
+
+    public University mergeFourSmallestDepartments() {
+        return mergeKSmallestDepartments(4);
+    }
+
+    /**
+     * Merges the k departments with the fewest enrolled students into one department named
+     * "A & B & ..." in ascending enrollment order (ties by catalog order) and appends it after the
+     * remaining departments. The result shares the courses with this university; a department on
+     * either side copies its courses on its first change, so the other university is left as it was.
+     */
+    public University mergeKSmallestDepartments(int k) {
+        int count = Math.min(Math.max(k, 0), departments.size());
+        if (count == 0) throw new NoSuchElementException("No value present");
+
+        // enrollment in the high half and position in the low half makes every key unique
+        long[] keys = new long[departments.size()];
+        for (int d = 0; d < keys.length; d++) {
+            keys[d] = ((long) stats.get(d).getEnrolledStudents() << 32) | d;
+        }
+        selectSmallest(keys, count);
+        Arrays.sort(keys, 0, count);
+
+        Set<Department> smallest = Collections.newSetFromMap(new IdentityHashMap<>());
+        boolean[] selected = new boolean[departments.size()];
+        List<Department> parts = new ArrayList<>(count);
+        StringBuilder name = new StringBuilder();
+        DepartmentStats mergedStats = new DepartmentStats();
+        for (int j = 0; j < count; j++) {
+            int d = (int) keys[j];
+            Department department = departments.get(d);
+            smallest.add(department);
+            selected[d] = true;
+            parts.add(department);
+            mergedStats.merge(stats.get(d));
+            if (j > 0) name.append(" & ");
+            name.append(department.getName());
+        }
+
+        List<Department> newDepartments = new ArrayList<>(departments.size() - count + 1);
+        List<DepartmentStats> newStats = new ArrayList<>(departments.size() - count + 1);
+        List<Department> droppedAgain = new ArrayList<>();
+        Map<Department, Department> shares = new IdentityHashMap<>();
+        for (int d = 0; d < departments.size(); d++) {
+            Department department = departments.get(d);
+            if (!smallest.contains(department)) {
+                newDepartments.add(shares.computeIfAbsent(department, Department::share));
+                newStats.add(stats.get(d).copy());
+            } else if (!selected[d]) {
+                droppedAgain.add(department);
+            }
+        }
+        newDepartments.add(Department.merge(name.toString(), parts));
+        newStats.add(mergedStats);
+        University merged = new University(newDepartments, newStats, this);
+        // a department listed twice leaves with its merged listing, so its other listing leaves the totals
+        for (Department department : droppedAgain) {
+            department.getCourses().forEach(merged::removeFromTotals);
+        }
+        return merged;
+    }
+
+    private static void selectSmallest(long[] keys, int k) {
+        // quickselect: afterwards keys[0..k) hold the k smallest keys in no particular order
+        int low = 0, high = keys.length - 1;
+        Random random = new Random(keys.length);
+        while (low < high) {
+            long pivot = keys[low + random.nextInt(high - low + 1)];
+            int i = low, j = high;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) {
+                    long tmp = keys[i];
+                    keys[i++] = keys[j];
+                    keys[j--] = tmp;
+                }
+            }
+            if (k - 1 <= j) {
+                high = j;
+            } else if (k - 1 >= i) {
+                low = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Switches this university to parallel mode on the common pool, see {@link #parallel(ForkJoinPool)}.
+     */
+    public University parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Switches this university to running its course scans on the given pool and returns this same
+     * university, not a copy: the mode is a setting of the object, so every holder of it sees the
+     * change. Results are the same as in sequential mode: ranges are combined left to right, so lists
+     * keep catalog order and ties resolve the same way.
+     */
+    public University parallel(ForkJoinPool pool) {
+        this.pool = pool;
+        return this;
+    }
+
+    /**
+     * Switches this university back to scanning on the calling thread and returns it, like
+     * {@link #parallel(ForkJoinPool)} this changes the university itself.
+     */
+    public University sequential() {
+        this.pool = null;
+        return this;
+    }
+
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    private <R> R scan(RangeScanner<R> scanner, BinaryOperator<R> combiner) {
+        CourseColumns columns = columns();
+        if (pool == null) {
+            return scanner.scan(columns, 0, columns.size());
+        }
+        CourseRangeSpliterator range = new CourseRangeSpliterator(columns, 0, columns.size(), PARALLEL_LEAF_SIZE);
+        return pool.invoke(new ParallelCourseScan<>(scanner, combiner, columns, range));
+    }
+
+    private static List<Course> coursesAt(CourseColumns columns, int[] positions) {
+        List<Course> result = new ArrayList<>(positions.length);
+        for (int i : positions) {
+            result.add(columns.course(i));
+        }
+        return result;
+    }
+
+    private static <T> List<T> concat(List<T> left, List<T> right) {
+        left.addAll(right);
+        return left;
+    }
+
+    private static void mergeSorted(String[] values, String[] buffer, int from, int mid, int to) {
+        System.arraycopy(values, from, buffer, from, to - from);
+        int i = from, j = mid, k = from;
+        while (i < mid && j < to) {
+            values[k++] = buffer[j].compareTo(buffer[i]) < 0 ? buffer[j++] : buffer[i++];
+        }
+        while (i < mid) values[k++] = buffer[i++];
+        while (j < to) values[k++] = buffer[j++];
+    }
+
+    private static <V> void putUnique(Map<String, V> map, String key, V value) {
+        if (map.putIfAbsent(key, value) != null) {
+            throw new IllegalStateException(String.format("Duplicate key %s", key));
+        }
+    }
+}
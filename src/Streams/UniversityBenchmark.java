@@ -0,0 +1,100 @@
+package Streams;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Benchmarks every public University method on a synthetic catalog through
+ * {@link BenchmarkHarness}, each in its own forked JVMs. Queries that scan the courses are measured
+ * sequentially and in parallel mode.
+ */
+public class UniversityBenchmark {
+
+    private static final Map<String, ToIntFunction<University>> PARALLEL_QUERIES = new LinkedHashMap<>();
+    private static final Map<String, ToIntFunction<University>> SEQUENTIAL_QUERIES = new LinkedHashMap<>();
+
+    static {
+        PARALLEL_QUERIES.put("getAllCourseNames", u -> u.getAllCourseNames().size());
+        PARALLEL_QUERIES.put("getCoursesWithMinCredits", u -> u.getCoursesWithMinCredits(7).size());
+        PARALLEL_QUERIES.put("getHardestCourse", u -> u.getHardestCourse().hashCode());
+        PARALLEL_QUERIES.put("groupByDifficulty", u -> u.groupByDifficulty().size());
+        PARALLEL_QUERIES.put("getCourseEnrollmentMap", u -> u.getCourseEnrollmentMap().size());
+        PARALLEL_QUERIES.put("getAverageEnrollmentPerCourse", u -> (int) u.getAverageEnrollmentPerCourse());
+        PARALLEL_QUERIES.put("getSortedCourseCodes", u -> u.getSortedCourseCodes().size());
+        PARALLEL_QUERIES.put("getDepartmentToCourseNames", u -> u.getDepartmentToCourseNames().size());
+        PARALLEL_QUERIES.put("getAllCourses", u -> u.getAllCourses().size());
+        PARALLEL_QUERIES.put("getTop3HardestCourses", u -> u.getTop3HardestCourses().size());
+        PARALLEL_QUERIES.put("getTopKMostEnrolledCourses", u -> u.getTopKMostEnrolledCourses(100).size());
+        PARALLEL_QUERIES.put("getTopKCoursesByCredits", u -> u.getTopKCoursesByCredits(100).size());
+        PARALLEL_QUERIES.put("getTopK", u -> u.getTopK(100, Comparator.comparing(Course::getName)).size());
+        PARALLEL_QUERIES.put("getEnrollmentStatistics", u -> (int) u.getEnrollmentStatistics().getCount());
+
+        SEQUENTIAL_QUERIES.put("getTotalStudentCount", University::getTotalStudentCount);
+        SEQUENTIAL_QUERIES.put("getMostPopularDepartment", u -> u.getMostPopularDepartment().hashCode());
+        SEQUENTIAL_QUERIES.put("getStudentsByDifficulty", u -> u.getStudentsByDifficulty().size());
+        SEQUENTIAL_QUERIES.put("getTotalCreditsPerDepartment", u -> u.getTotalCreditsPerDepartment().size());
+        SEQUENTIAL_QUERIES.put("getAverageDifficultyPerDepartment", u -> u.getAverageDifficultyPerDepartment().size());
+        SEQUENTIAL_QUERIES.put("getCoursesByDifficultyRange", u -> u.getCoursesByDifficultyRange(9, 10).size());
+        SEQUENTIAL_QUERIES.put("getPopularCourseCodes", u -> u.getPopularCourseCodes(990).size());
+        SEQUENTIAL_QUERIES.put("mergeFourSmallestDepartments", u -> u.mergeFourSmallestDepartments().getDepartments().size());
+        SEQUENTIAL_QUERIES.put("mergeKSmallestDepartments", u -> u.mergeKSmallestDepartments(100).getDepartments().size());
+        SEQUENTIAL_QUERIES.put("getDepartments", u -> u.getDepartments().size());
+        SEQUENTIAL_QUERIES.put("getModCount", University::getModCount);
+    }
+
+    // usage: UniversityBenchmark [departments] [coursesPerDepartment] [harness options, see BenchmarkHarness]
+    public static void main(String[] args) {
+        BenchmarkHarness harness = new BenchmarkHarness(UniversityBenchmark.class, args);
+        int departments = Integer.parseInt(harness.argument(0, "1000"));
+        int coursesPerDepartment = Integer.parseInt(harness.argument(1, "100"));
+        Supplier<University> catalog = () -> new University(SyntheticCatalog.generate(departments, coursesPerDepartment, 42));
+
+        for (Map.Entry<String, ToIntFunction<University>> query : PARALLEL_QUERIES.entrySet()) {
+            ToIntFunction<University> benchmark = query.getValue();
+            harness.add(query.getKey() + " sequential", () -> {
+                University university = catalog.get();
+                return () -> benchmark.applyAsInt(university);
+            });
+            harness.add(query.getKey() + " parallel", () -> {
+                University university = catalog.get().parallel(ForkJoinPool.commonPool());
+                return () -> benchmark.applyAsInt(university);
+            });
+        }
+        for (Map.Entry<String, ToIntFunction<University>> query : SEQUENTIAL_QUERIES.entrySet()) {
+            ToIntFunction<University> benchmark = query.getValue();
+            harness.add(query.getKey() + " sequential", () -> {
+                University university = catalog.get();
+                return () -> benchmark.applyAsInt(university);
+            });
+        }
+
+        // mutators alternate between two states so the catalog does not drift between iterations
+        harness.add("updateEnrollment sequential", () -> {
+            University university = catalog.get();
+            Department first = university.getDepartments().get(0);
+            String code = first.getCourses().get(0).getCode();
+            return () -> university.updateEnrollment(first.getName(), code, university.getModCount() & 1023) ? 1 : 0;
+        });
+        harness.add("addCourse+removeCourse sequential", () -> {
+            University university = catalog.get();
+            String department = university.getDepartments().get(0).getName();
+            Course extra = new Course("BENCH", "Benchmark course", 6, 5, 100);
+            return () -> university.addCourse(department, extra) && university.removeCourse(department, "BENCH") ? 1 : 0;
+        });
+        harness.add("addDepartment+removeDepartment sequential", () -> {
+            University university = catalog.get();
+            Department extra = new Department("Benchmark department", SyntheticCatalog.generate(1, coursesPerDepartment, 7).get(0).getCourses());
+            return () -> {
+                university.addDepartment(extra);
+                return university.removeDepartment("Benchmark department") ? 1 : 0;
+            };
+        });
+
+        if (!harness.isFork()) {
+            System.out.printf("%d departments, %d courses%n", departments, (long) departments * coursesPerDepartment);
+        }
+        harness.run();
+    }
+}
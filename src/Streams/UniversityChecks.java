@@ -0,0 +1,136 @@
+package Streams;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Self-checking runs of queries whose edge cases the tester inputs do not reach. Each check throws
+ * an IllegalStateException on the first wrong answer; a clean run prints "all checks passed".
+ */
+public class UniversityChecks {
+
+    public static void main(String[] args) throws IOException {
+        mergedUniversityIsIndependent();
+        sharedCoursesStayIndexed();
+        departmentListedTwice();
+        topKBeyondCourseCount();
+        catalogTextRoundTrips();
+        System.out.println("all checks passed");
+    }
+
+    private static void mergedUniversityIsIndependent() {
+        University source = new University(catalog());
+        University merged = source.mergeKSmallestDepartments(2);
+        int students = source.getTotalStudentCount();
+        String statistics = source.getEnrollmentStatistics().toString();
+        String courses = source.getAllCourses().toString();
+
+        // C and B are merged, A is carried over as it was
+        merged.updateEnrollment("C & B", "c1", 1000);
+        merged.updateEnrollment("A", "a1", 500);
+        merged.addCourse("C & B", new Course("c9", "Added", 1, 1, 7));
+        merged.removeCourse("A", "a2");
+
+        check(source.getTotalStudentCount() == students, "source total changed: " + source.getTotalStudentCount());
+        check(source.getEnrollmentStatistics().toString().equals(statistics), "source statistics changed: " + source.getEnrollmentStatistics());
+        check(source.getAllCourses().toString().equals(courses), "source courses changed: " + source.getAllCourses());
+        check(source.getDepartments().get(2).findCourse("c1").getEnrolledStudents() == 5, "source course changed");
+        check(merged.getTotalStudentCount() == merged.getEnrollmentStatistics().getSum(), "merged totals disagree");
+
+        // and the other way round
+        source.updateEnrollment("B", "b1", 2000);
+        check(merged.getDepartments().get(1).findCourse("b1").getEnrolledStudents() == 10, "merged course changed");
+        check(merged.getTotalStudentCount() == merged.getEnrollmentStatistics().getSum(), "merged totals disagree");
+    }
+
+    private static void sharedCoursesStayIndexed() {
+        University source = new University(catalog());
+        University merged = source.mergeKSmallestDepartments(2);
+        // build both universities' columns and indexes before either copies its courses
+        source.getCoursesWithMinCredits(0);
+        source.getTopKMostEnrolledCourses(10);
+        merged.getCoursesWithMinCredits(0);
+        merged.getTopKMostEnrolledCourses(10);
+
+        source.updateEnrollment("A", "a1", 300);
+        merged.updateEnrollment("A", "a1", 400);
+        merged.updateEnrollment("C & B", "b1", 50);
+        source.removeCourse("C", "c1");
+        for (University university : List.of(source, merged)) {
+            University rebuilt = new University(university.getDepartments());
+            check(university.getTopKMostEnrolledCourses(10).equals(rebuilt.getTopKMostEnrolledCourses(10)), "stale index: " + university.getTopKMostEnrolledCourses(10));
+            check(university.getEnrollmentStatistics().toString().equals(rebuilt.getEnrollmentStatistics().toString()), "stale columns: " + university.getEnrollmentStatistics());
+        }
+        check(source.getDepartments().get(0).findCourse("a1").getEnrolledStudents() == 300, "source lost its change");
+        check(merged.getDepartments().get(0).findCourse("a1").getEnrolledStudents() == 400, "merged lost its change");
+    }
+
+    private static void departmentListedTwice() {
+        List<Department> catalog = new ArrayList<>(catalog());
+        catalog.add(catalog.get(2));
+        University merged = new University(catalog).mergeKSmallestDepartments(1);
+        // both listings of C leave, only the merged one comes back
+        check(merged.getDepartments().size() == 3, "kept " + merged.getDepartments());
+        University rebuilt = new University(merged.getDepartments());
+        check(merged.getTotalStudentCount() == rebuilt.getTotalStudentCount(), "total " + merged.getTotalStudentCount() + " instead of " + rebuilt.getTotalStudentCount());
+        check(merged.getStudentsByDifficulty().equals(rebuilt.getStudentsByDifficulty()), "students by difficulty " + merged.getStudentsByDifficulty());
+    }
+
+    private static void topKBeyondCourseCount() {
+        University university = new University(SyntheticCatalog.generate(50, 400, 42));
+        List<Course> sorted = new ArrayList<>(university.getAllCourses());
+        sorted.sort(Comparator.comparingInt(Course::getDifficulty).reversed());
+        for (int k : new int[]{sorted.size() + 1, 1 << 20, Integer.MAX_VALUE}) {
+            check(university.sequential().getTopKHardestCourses(k).equals(sorted), "sequential top " + k + " is not every course");
+            check(university.parallel().getTopKHardestCourses(k).equals(sorted), "parallel top " + k + " is not every course");
+        }
+        university.sequential();
+    }
+
+    private static void catalogTextRoundTrips() throws IOException {
+        Path file = Files.createTempFile("catalog", ".txt");
+        try {
+            University university = new University(catalog());
+            university.addCourse("A", new Course("a3", "Bounds", Integer.MAX_VALUE, Integer.MIN_VALUE, -1));
+            CatalogLoader.write(university, file);
+            check(CatalogLoader.load(file).getAllCourses().toString().equals(university.getAllCourses().toString()), "catalog did not load back as written");
+            check(CatalogLoader.load(file).getTotalStudentCount() == university.getTotalStudentCount(), "catalog numbers did not load back as written");
+
+            for (String name : new String[]{"A;B", "A\nB", "A\r"}) {
+                University unwritable = new University(Arrays.asList(new Department("D", Arrays.asList(new Course("d1", name, 1, 1, 1)))));
+                try {
+                    CatalogLoader.write(unwritable, file);
+                    check(false, "wrote the course name " + name.replace("\n", "\\n").replace("\r", "\\r"));
+                } catch (IllegalArgumentException expected) {
+                    // a separator in a name
+                }
+            }
+
+            for (String number : new String[]{"2147483648", "-2147483649", "99999999999", "-"}) {
+                Files.write(file, ("D\nd1;Name;1;1;" + number + "\n").getBytes(StandardCharsets.UTF_8));
+                try {
+                    CatalogLoader.load(file);
+                    check(false, "loaded the number " + number);
+                } catch (IOException expected) {
+                    // out of range
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<Department> catalog() {
+        return Arrays.asList(
+                new Department("A", Arrays.asList(new Course("a1", "A1", 3, 2, 20), new Course("a2", "A2", 4, 3, 25))),
+                new Department("B", Arrays.asList(new Course("b1", "B1", 2, 1, 10))),
+                new Department("C", Arrays.asList(new Course("c1", "C1", 5, 4, 5))));
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) throw new IllegalStateException(message);
+    }
+}
@@ -0,0 +1,75 @@
+package Streams;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Times the scanning queries sequentially and in parallel mode on pools of 1, 2, 4, ... threads
+ * through {@link BenchmarkHarness}, after checking that every pool size gives the sequential answers.
+ */
+public class UniversityScalingBenchmark {
+
+    private static final Map<String, Function<University, Object>> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("getAllCourseNames", University::getAllCourseNames);
+        QUERIES.put("getCoursesWithMinCredits", u -> u.getCoursesWithMinCredits(6));
+        QUERIES.put("getHardestCourse", University::getHardestCourse);
+        QUERIES.put("groupByDifficulty", University::groupByDifficulty);
+        QUERIES.put("getCourseEnrollmentMap", University::getCourseEnrollmentMap);
+        QUERIES.put("getAverageEnrollmentPerCourse", University::getAverageEnrollmentPerCourse);
+        QUERIES.put("getSortedCourseCodes", University::getSortedCourseCodes);
+        QUERIES.put("getDepartmentToCourseNames", University::getDepartmentToCourseNames);
+        QUERIES.put("getAllCourses", University::getAllCourses);
+        QUERIES.put("getCoursesByDifficultyRange", u -> u.getCoursesByDifficultyRange(4, 6));
+        QUERIES.put("getPopularCourseCodes", u -> u.getPopularCourseCodes(900));
+        QUERIES.put("getTop3HardestCourses", University::getTop3HardestCourses);
+        QUERIES.put("getTopKMostEnrolledCourses", u -> u.getTopKMostEnrolledCourses(100));
+        QUERIES.put("getEnrollmentStatistics", University::getEnrollmentStatistics);
+    }
+
+    // usage: UniversityScalingBenchmark [departments] [coursesPerDepartment] [maxThreads] [harness options, see BenchmarkHarness]
+    public static void main(String[] args) {
+        BenchmarkHarness harness = new BenchmarkHarness(UniversityScalingBenchmark.class, args);
+        int departments = Integer.parseInt(harness.argument(0, "1000"));
+        int coursesPerDepartment = Integer.parseInt(harness.argument(1, "1000"));
+        int maxThreads = Integer.parseInt(harness.argument(2, String.valueOf(Runtime.getRuntime().availableProcessors())));
+        Supplier<University> catalog = () -> new University(SyntheticCatalog.generate(departments, coursesPerDepartment, 42));
+
+        if (!harness.isFork()) {
+            System.out.printf("%d departments, %d courses%n", departments, (long) departments * coursesPerDepartment);
+            checkParallelResults(catalog.get(), maxThreads);
+        }
+        for (Map.Entry<String, Function<University, Object>> query : QUERIES.entrySet()) {
+            Function<University, Object> benchmark = query.getValue();
+            harness.add(query.getKey() + " sequential", () -> {
+                University university = catalog.get();
+                return () -> benchmark.apply(university).hashCode();
+            });
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                int poolSize = threads;
+                harness.add(query.getKey() + " " + threads + " threads", () -> {
+                    University university = catalog.get().parallel(new ForkJoinPool(poolSize));
+                    return () -> benchmark.apply(university).hashCode();
+                });
+            }
+        }
+        harness.run();
+    }
+
+    private static void checkParallelResults(University university, int maxThreads) {
+        for (Map.Entry<String, Function<University, Object>> query : QUERIES.entrySet()) {
+            String expected = String.valueOf(query.getValue().apply(university.sequential()));
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                if (!expected.equals(String.valueOf(query.getValue().apply(university.parallel(pool))))) {
+                    throw new IllegalStateException(query.getKey() + " differs in parallel mode with " + threads + " threads");
+                }
+                pool.shutdown();
+            }
+        }
+        university.sequential();
+    }
+}
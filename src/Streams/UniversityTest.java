@@ -1,245 +1,84 @@
 package Streams;
 
+import java.io.*;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.*;
 
-class Course {
-    private String code;
-    private String name;
-    private int credits;
-    private int difficulty;
-    private int enrolledStudents;
-
-    public Course(String code, String name, int credits, int difficulty, int enrolledStudents) {
-        this.code = code;
-        this.name = name;
-        this.credits = credits;
-        this.difficulty = difficulty;
-        this.enrolledStudents = enrolledStudents;
-    }
-
-    public String getCode() {
-        return code;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public int getCredits() {
-        return credits;
-    }
-
-    public int getDifficulty() {
-        return difficulty;
-    }
-
-    public int getEnrolledStudents() {
-        return enrolledStudents;
-    }
-
-    @Override
-    public String toString() {
-        return String.format("%s (%s)", code, name);
-    }
-}
-
-
-class Department {
-    private String name;
-    private List<Course> courses;
-
-    public Department(String name, List<Course> courses) {
-        this.name = name;
-        this.courses = courses;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public List<Course> getCourses() {
-        return courses;
-    }
-
-    @Override
-    public String toString() {
-        return name;
-    }
-}
-
-
-class University {
-
-    private List<Department> departments;
-
-    public University(List<Department> departments) {
-        this.departments = departments;
-    }
-
-
-    public List<String> getAllCourseNames() {
-        return departments.stream()
-                .flatMap(u -> u.getCourses().stream())
-                .map(Course::getName)
-                .collect(Collectors.toList());
-    }
-
-    public List<Course> getCoursesWithMinCredits(int minCredits) {
-        return departments
-                .stream()
-                .flatMap(d -> d.getCourses().stream())
-                .filter(c -> c.getCredits()>=minCredits)
-                .collect(Collectors.toList());
-
-    }
-
-    public int getTotalStudentCount() {
-        return departments
-                .stream()
-                .flatMap(d->d.getCourses().stream())
-                .mapToInt(Course::getEnrolledStudents)
-                .sum();
-
-    }
-
-    public Optional<Course> getHardestCourse() {
-        return departments
-                .stream()
-                .flatMap(d -> d.getCourses().stream()).max(Comparator.comparing(Course::getDifficulty));
-    }
-
-    public Map<Integer, List<Course>> groupByDifficulty() {
-        return departments.stream()
-                .flatMap(d->d.getCourses().stream())
-                .collect(Collectors.groupingBy(Course::getDifficulty, Collectors.toList()));
-    }
-
-    public Map<String, Integer> getCourseEnrollmentMap() {
-        return departments.stream()
-                .flatMap(d->d.getCourses().stream())
-                .collect(Collectors.groupingBy(Course::getCode,
-                        Collectors.summingInt(Course::getEnrolledStudents)));
-    }
-
-    public double getAverageEnrollmentPerCourse() {
-
-        return departments.stream()
-                .flatMap(department -> department.getCourses().stream())
-                .mapToInt(Course::getEnrolledStudents)
-                .average()
-                .orElseThrow(RuntimeException::new);
-    }
-
-    public List<String> getSortedCourseCodes() {
-        return departments.stream()
-                .flatMap(department -> department.getCourses().stream())
-                .map(Course::getCode)
-                .sorted().collect(Collectors.toList());
-    }
-
-    public Map<String, List<String>> getDepartmentToCourseNames() {
-        return departments.stream()
-                .collect(Collectors.toMap(
-                        Department::getName, department ->
-                                department.getCourses().stream().map(Course::getName).collect(Collectors.toList())));
-    }
-
-    public List<Course> getAllCourses() {
-        return departments.stream().flatMap(d->d.getCourses().stream()).collect(Collectors.toList());
-    }
-
-    public Optional<Department> getMostPopularDepartment() {
-        return departments.stream()
-                .max(Comparator.comparingInt(
-                        d -> d.getCourses().stream()
-                                .mapToInt(Course::getEnrolledStudents)
-                                .sum()
-                ));
-    }
-
-    public Map<Integer, Integer> getStudentsByDifficulty() {
-        return departments.stream()
-                .flatMap(d->d.getCourses().stream())
-                .collect(Collectors.groupingBy(
-                        Course::getDifficulty,
-                        Collectors.summingInt(Course::getEnrolledStudents)));
-    }
-
-    public List<Course> getCoursesByDifficultyRange(int min, int max) {
-        return departments.stream()
-                .flatMap(d->d.getCourses().stream())
-                .filter(course -> course.getDifficulty()>=min && course.getDifficulty()<=max)
-                .collect(Collectors.toList());
-    }
-
-    public List<String> getPopularCourseCodes(int minStudents) {
-        return departments.stream()
-                .flatMap(d->d.getCourses().stream())
-                .filter(course -> course.getEnrolledStudents()>=minStudents)
-                .map(Course::getCode)
-                .collect(Collectors.toList());
-    }
-
-    public Map<String, Integer> getTotalCreditsPerDepartment() {
-        return departments.stream()
-                .collect(Collectors.
-                        toMap(
-                                Department::getName,
-                                department -> department.getCourses().stream().mapToInt(Course::getCredits).sum()
-                        ));
-    }
-
-    public List<Course> getTop3HardestCourses() {
-        return departments.stream()
-                .flatMap(d->d.getCourses().stream())
-                .sorted(Comparator.comparing(Course::getDifficulty).reversed())
-                .limit(3)
-                .collect(Collectors.toList());
-    }
-
-
-    public Map<String, Double> getAverageDifficultyPerDepartment() {
-        return departments.stream()
-                .collect(Collectors.toMap(
-                        Department::getName,
-                        d -> d.getCourses().stream().mapToInt(Course::getDifficulty).average().getAsDouble()
-                ));
-    }
-
-
-
-    public IntSummaryStatistics getEnrollmentStatistics() {
-        return departments.stream()
-                .flatMap(d->d.getCourses().stream())
-                .collect(Collectors.summarizingInt(Course::getEnrolledStudents));
-    }
-
+public class UniversityTest {
 
-    public University mergeFourSmallestDepartments() {
-        List<Department> smallest = departments
-                .stream()
-                .sorted(Comparator.comparingInt(department -> department.getCourses().stream().mapToInt(Course::getEnrolledStudents).sum()))
-                .limit(4)
-                .collect(Collectors.toList());
-        Department merged = smallest
-                .stream()
-                .reduce((d1, d2) -> {
-                    List<Course> courses = new ArrayList<>();
-                    courses.addAll(d1.getCourses());
-                    courses.addAll(d2.getCourses());
-                    return new Department(d1.getName()+" & "+d2.getName(), courses );
-                })
-                .orElseThrow();
-        List<Department> newdepartment = departments.stream()
-                .filter(d-> !smallest.contains(d)).collect(Collectors.toList());
-        newdepartment.add(merged);
-        return new University(newdepartment);
-    }
-}
+    private static final Map<String, QueryHandler> HANDLERS = new HashMap<>();
+    private static final Set<String> PARAMETERLESS = new HashSet<>();
 
-public class UniversityTest {
-    public static void main(String[] args) {
+    static {
+        query("getAllCourseNames", (university, sc, out) -> university.getAllCourseNames().forEach(out::println));
+        HANDLERS.put("getCoursesWithMinCredits", (university, sc, out) -> {
+            int x = sc.nextInt();
+            university.getCoursesWithMinCredits(x).forEach(out::println);
+        });
+        query("getTotalStudentCount", (university, sc, out) -> out.println(university.getTotalStudentCount()));
+        query("getHardestCourse", (university, sc, out) -> out.println(university.getHardestCourse()));
+        query("groupByDifficulty", (university, sc, out) -> university.groupByDifficulty().forEach((k, v) -> {
+            out.println(String.format("Difficulty: %d", k));
+            v.forEach(out::println);
+        }));
+        query("getCourseEnrollmentMap", (university, sc, out) ->
+                university.getCourseEnrollmentMap().forEach((k, v) -> out.println(String.format("%s -> %d", k, v))));
+        query("getAverageEnrollmentPerCourse", (university, sc, out) -> out.println(university.getAverageEnrollmentPerCourse()));
+        query("getSortedCourseCodes", (university, sc, out) -> university.getSortedCourseCodes().forEach(out::println));
+        query("getDepartmentToCourseNames", (university, sc, out) -> printDepartments(university, out));
+        query("getAllCourses", (university, sc, out) -> university.getAllCourses().forEach(out::println));
+        query("getMostPopularDepartment", (university, sc, out) -> out.println(university.getMostPopularDepartment()));
+        query("getStudentsByDifficulty", (university, sc, out) ->
+                university.getStudentsByDifficulty().forEach((k,v) -> out.println(String.format("%s -> %d", k, v))));
+        HANDLERS.put("getCoursesByDifficultyRange", (university, sc, out) -> {
+            int min = sc.nextInt();
+            int max = sc.nextInt();
+            university.getCoursesByDifficultyRange(min, max).forEach(out::println);
+        });
+        HANDLERS.put("getPopularCourseCodes", (university, sc, out) -> {
+            int minStudents = sc.nextInt();
+            university.getPopularCourseCodes(minStudents).forEach(out::println);
+        });
+        query("getTotalCreditsPerDepartment", (university, sc, out) ->
+                university.getTotalCreditsPerDepartment().forEach((k,v) -> out.println(String.format("%s -> %d", k, v))));
+        query("getTop3HardestCourses", (university, sc, out) -> university.getTop3HardestCourses().forEach(out::println));
+        query("getAverageDifficultyPerDepartment", (university, sc, out) ->
+                university.getAverageDifficultyPerDepartment().forEach((k,v)-> out.println(String.format("%s -> %.2f", k, v))));
+        query("getEnrollmentStatistics", (university, sc, out) -> out.println(university.getEnrollmentStatistics()));
+        query("mergeFourSmallestDepartments", (university, sc, out) -> {
+            University updated = university.mergeFourSmallestDepartments();
+            out.println("Merged University Departments:");
+            printDepartments(updated, out);
+        });
+        // department line, then course code and the new enrollment
+        HANDLERS.put("updateEnrollment", (university, sc, out) -> {
+            String department = sc.nextLine().trim();
+            String code = sc.next();
+            int enrolledStudents = sc.nextInt();
+            out.println(university.updateEnrollment(department, code, enrolledStudents));
+        });
+    }
+
+    private static void query(String method, QueryHandler handler) {
+        HANDLERS.put(method, handler);
+        PARAMETERLESS.add(method);
+    }
+
+    private static void printDepartments(University university, PrintWriter out) {
+        university.getDepartmentToCourseNames().forEach((k,v) -> {
+            out.println(String.format("Department: %s", k));
+            v.forEach(out::println);
+        });
+    }
+
+    /**
+     * Answers one query, or with --batch every query on the input. Output of parameterless
+     * queries is kept until the catalog changes.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean batch = args.length > 0 && args[0].equals("--batch");
+        String catalog = args.length > (batch ? 1 : 0) ? args[batch ? 1 : 0] : null;
 
         Scanner sc = new Scanner(System.in);
 
@@ -301,86 +140,47 @@ public class UniversityTest {
                 new Course("HIS4", "Contemporary History", 5, 7, 140)
         )));
 
-        University university = new University(departments);
-
-        String method = sc.nextLine().trim();
-
-        System.out.println("Testing method: " + method);
-
-        if (method.equals("getAllCourseNames")) {
-            university.getAllCourseNames().forEach(System.out::println);
-
-        } else if (method.equals("getCoursesWithMinCredits")) {
-            int x = sc.nextInt();
-            university.getCoursesWithMinCredits(x).forEach(System.out::println);
-
-        } else if (method.equals("getTotalStudentCount")) {
-            System.out.println(university.getTotalStudentCount());
-
-        } else if (method.equals("getHardestCourse")) {
-            System.out.println(university.getHardestCourse());
-
-        } else if (method.equals("groupByDifficulty")) {
-            university.groupByDifficulty().forEach((k, v) -> {
-                System.out.println(String.format("Difficulty: %d", k));
-                v.forEach(System.out::println);
-            });
-
-        } else if (method.equals("getCourseEnrollmentMap")) {
-            university.getCourseEnrollmentMap().forEach((k, v) -> System.out.println(String.format("%s -> %d", k, v)));
-
-        } else if (method.equals("getAverageEnrollmentPerCourse")) {
-            System.out.println(university.getAverageEnrollmentPerCourse());
-
-        } else if (method.equals("getSortedCourseCodes")) {
-            university.getSortedCourseCodes().forEach(System.out::println);
-
-        } else if (method.equals("getDepartmentToCourseNames")) {
-            university.getDepartmentToCourseNames().forEach((k,v) -> {
-                System.out.println(String.format("Department: %s", k));
-                v.forEach(System.out::println);
-            });
-
-        } else if (method.equals("getAllCourses")) {
-            university.getAllCourses().forEach(System.out::println);
-
-        } else if (method.equals("getMostPopularDepartment")) {
-            System.out.println(university.getMostPopularDepartment());
-
-        } else if (method.equals("getStudentsByDifficulty")) {
-            university.getStudentsByDifficulty().forEach((k,v) -> System.out.println(String.format("%s -> %d", k, v)));
-
-        } else if (method.equals("getCoursesByDifficultyRange")) {
-            int min = sc.nextInt();
-            int max = sc.nextInt();
-            university.getCoursesByDifficultyRange(min, max).forEach(System.out::println);
-
-        } else if (method.equals("getPopularCourseCodes")) {
-            int minStudents = sc.nextInt();
-            university.getPopularCourseCodes(minStudents).forEach(System.out::println);
-
-        } else if (method.equals("getTotalCreditsPerDepartment")) {
-            university.getTotalCreditsPerDepartment().forEach((k,v) -> System.out.println(String.format("%s -> %d", k, v)));
-
-        } else if (method.equals("getTop3HardestCourses")) {
-            university.getTop3HardestCourses().forEach(System.out::println);
-
-        } else if (method.equals("getAverageDifficultyPerDepartment")) {
-            university.getAverageDifficultyPerDepartment().forEach((k,v)-> System.out.println(String.format("%s -> %.2f", k, v)));
-
-        } else if (method.equals("getEnrollmentStatistics")) {
-            System.out.println(university.getEnrollmentStatistics());
-
-        } else if (method.equals("mergeFourSmallestDepartments")) {
-            University updated = university.mergeFourSmallestDepartments();
-            System.out.println("Merged University Departments:");
-            updated.getDepartmentToCourseNames().forEach((k,v) -> {
-                System.out.println(String.format("Department: %s", k));
-                v.forEach(System.out::println);
-            });
-
+        // an optional catalog file replaces the built-in departments
+        University university;
+        if (catalog != null && catalog.endsWith(".bin")) {
+            university = CatalogLoader.loadBinary(Paths.get(catalog));
+        } else if (catalog != null) {
+            university = CatalogLoader.load(Paths.get(catalog));
         } else {
-            System.out.println("Unknown method!");
+            university = new University(departments);
+        }
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        Map<String, String> memo = new HashMap<>();
+        int memoModCount = university.getModCount();
+        try {
+            do {
+                String method = sc.hasNextLine() ? sc.nextLine().trim() : "";
+                if (batch && method.isEmpty()) continue;
+
+                out.println("Testing method: " + method);
+                QueryHandler handler = HANDLERS.get(method);
+                if (handler == null) {
+                    out.println("Unknown method!");
+                } else if (PARAMETERLESS.contains(method)) {
+                    if (memoModCount != university.getModCount()) {
+                        memo.clear();
+                        memoModCount = university.getModCount();
+                    }
+                    String result = memo.get(method);
+                    if (result == null) {
+                        StringWriter buffer = new StringWriter();
+                        handler.handle(university, sc, new PrintWriter(buffer));
+                        result = buffer.toString();
+                        memo.put(method, result);
+                    }
+                    out.print(result);
+                } else {
+                    handler.handle(university, sc, out);
+                }
+            } while (batch && sc.hasNextLine());
+        } finally {
+            out.flush();
         }
     }
 }